@@ -3,6 +3,7 @@ package com.blog;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @author 苍晖
@@ -11,6 +12,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 @MapperScan("com.blog.web.mapper")
+@EnableScheduling
 public class PersonBlogServerApplication {
     public static void main(String[] args) {
         SpringApplication.run(PersonBlogServerApplication.class, args);
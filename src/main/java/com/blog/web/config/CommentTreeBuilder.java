@@ -0,0 +1,164 @@
+package com.blog.web.config;
+
+import com.blog.web.dto.CommentNode;
+import com.blog.web.entity.Comment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评论树构建器。
+ * <p>
+ * 不使用递归：先按排序规则排好所有评论，再用数组记录每条评论的父节点下标、层级和挂载点，
+ * 每条评论只访问常数次，深层回复不会导致栈溢出。按排好的顺序依次挂到父节点上，
+ * 同级评论自然有序，不需要对每个节点的子列表单独排序。
+ * <p>
+ * 超过最大层级的回复挂到第 maxDepth-1 层的祖先下，即显示在第 maxDepth 层；
+ * 父评论不存在（已删除）或父子关系成环的评论不会出现在树中，与原先的行为一致。
+ */
+@Component
+public class CommentTreeBuilder {
+
+    private static final int ROOT = -1;
+
+    private static final int ORPHAN = -2;
+
+    private static final int DEPTH_UNKNOWN = 0;
+
+    private static final int DEPTH_VISITING = -1;
+
+    private static final int DEPTH_UNREACHABLE = -2;
+
+    private static final Comparator<Comment> ASC = Comparator
+            .comparing(Comment::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Comment::getCommentId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * 最大层级，根评论为第1层；小于等于0表示不限制。
+     */
+    @Value("${comment.tree.max-depth:0}")
+    private int maxDepth;
+
+    /**
+     * 同级评论按创建时间排序的方向：asc 或 desc。
+     */
+    @Value("${comment.tree.child-order:asc}")
+    private String childOrder;
+
+    /**
+     * 使用配置的层级限制和排序方向构建评论树。
+     *
+     * @param comments 评论列表。
+     * @return 根评论节点列表。
+     */
+    public List<CommentNode> build(List<Comment> comments) {
+        return build(comments, maxDepth, "desc".equalsIgnoreCase(childOrder));
+    }
+
+    /**
+     * @return 配置的最大层级，小于等于0表示不限制。
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return 配置的同级评论排序规则。
+     */
+    public Comparator<Comment> siblingOrder() {
+        return "desc".equalsIgnoreCase(childOrder) ? ASC.reversed() : ASC;
+    }
+
+    /**
+     * 构建评论树。
+     *
+     * @param comments   评论列表，不会被修改。
+     * @param maxDepth   最大层级，小于等于0表示不限制。
+     * @param descending 同级评论是否按创建时间倒序。
+     * @return 根评论节点列表。
+     */
+    public static List<CommentNode> build(List<Comment> comments, int maxDepth, boolean descending) {
+        int n = comments.size();
+        List<Comment> sorted = new ArrayList<>(comments);
+        sorted.sort(descending ? ASC.reversed() : ASC);
+
+        CommentNode[] nodes = new CommentNode[n];
+        Map<Integer, Integer> indexById = new HashMap<>(n * 4 / 3 + 1);
+        for (int i = 0; i < n; i++) {
+            Comment comment = sorted.get(i);
+            nodes[i] = new CommentNode(comment);
+            if (comment.getCommentId() != null) {
+                indexById.put(comment.getCommentId(), i);
+            }
+        }
+
+        // 父节点下标：ROOT表示根评论，ORPHAN表示父评论不在列表中
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            Integer parentId = sorted.get(i).getParentId();
+            if (parentId == null || parentId == 0) {
+                parent[i] = ROOT;
+            } else {
+                Integer index = indexById.get(parentId);
+                parent[i] = index != null ? index : ORPHAN;
+            }
+        }
+
+        // 计算层级和挂载点：沿父链向上走到已知层级的祖先，再向下回填，整体每个节点只处理一次
+        int[] depth = new int[n];
+        int[] anchor = new int[n];
+        int[] stack = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (depth[i] != DEPTH_UNKNOWN) {
+                continue;
+            }
+            int top = 0;
+            int current = i;
+            while (current >= 0 && depth[current] == DEPTH_UNKNOWN) {
+                depth[current] = DEPTH_VISITING;
+                stack[top++] = current;
+                current = parent[current];
+            }
+            int parentDepth;
+            if (current == ROOT) {
+                parentDepth = 0;
+            } else if (current == ORPHAN || depth[current] < 0) {
+                // 父评论不存在、已知不可达，或遇到正在访问的节点（成环）
+                parentDepth = DEPTH_UNREACHABLE;
+            } else {
+                parentDepth = depth[current];
+            }
+            while (top > 0) {
+                int k = stack[--top];
+                if (parentDepth == DEPTH_UNREACHABLE) {
+                    depth[k] = DEPTH_UNREACHABLE;
+                    continue;
+                }
+                int d = parentDepth + 1;
+                depth[k] = d;
+                // 超过最大层级时沿用父节点的挂载点，最终都挂在第 maxDepth-1 层的祖先下
+                anchor[k] = maxDepth <= 0 || d <= maxDepth ? parent[k] : anchor[parent[k]];
+                parentDepth = d;
+            }
+        }
+
+        List<CommentNode> roots = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (depth[i] < 0) {
+                continue;
+            }
+            if (anchor[i] == ROOT) {
+                roots.add(nodes[i]);
+            } else {
+                nodes[anchor[i]].addChild(nodes[i]);
+            }
+        }
+        return roots;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.blog.web.config;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * 插入和删除语句执行成功后清除对应表的分页总数缓存。
+ * <p>
+ * 在语句执行之后而不是之前清除，避免清除与写入之间的并发查询把旧的总数重新放入缓存；
+ * 处于事务中时由 {@link PageCountCache} 推迟到事务提交之后。
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class CountCacheInterceptor implements Interceptor {
+
+    private final PageCountCache pageCountCache;
+
+    public CountCacheInterceptor(PageCountCache pageCountCache) {
+        this.pageCountCache = pageCountCache;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        SqlCommandType commandType = ms.getSqlCommandType();
+        if (commandType == SqlCommandType.INSERT || commandType == SqlCommandType.DELETE) {
+            // MappedStatement的ID为 Mapper全限定名.方法名
+            String id = ms.getId();
+            pageCountCache.evict(id.substring(0, id.lastIndexOf('.')));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,359 @@
+package com.blog.web.config;
+
+import com.blog.web.entity.Article;
+import com.blog.web.entity.Category;
+import com.blog.web.entity.Comment;
+import com.blog.web.entity.Media;
+import com.blog.web.entity.Tag;
+import com.blog.web.entity.User;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 实体类的紧凑二进制Redis序列化器。
+ * <p>
+ * 格式为：魔数(1字节) + 格式版本(1字节) + 类型标记(1字节) + 字段数据。字段按固定顺序写入，
+ * 不包含类名和字段名。{@code com.blog.web.entity} 下的实体、字符串、整数以及由它们组成的List
+ * 使用二进制格式，其余类型交给备用序列化器（JSON）处理。
+ * <p>
+ * 反序列化时根据首字节判断格式：JSON文本的首字节不可能是魔数，因此切换序列化器后
+ * Redis中已有的JSON数据仍然可以读取。
+ * <p>
+ * 实体增加字段时需要提升 {@link #VERSION}，并在读取时兼容旧版本的数据。
+ */
+public class EntityBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 魔数，0xB7在UTF-8中只能作为后续字节出现，不会是JSON文本的首字节。
+     */
+    static final byte MAGIC = (byte) 0xB7;
+
+    /**
+     * 当前写入的格式版本。
+     * <ul>
+     * <li>1：初始版本</li>
+     * <li>2：Media 增加 mediaHash、mediaSize</li>
+     * <li>3：Media 增加 mediaVariants</li>
+     * <li>4：Article 增加 viewCount</li>
+     * </ul>
+     */
+    static final byte VERSION = 4;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_LIST = 4;
+    private static final byte TYPE_ARTICLE = 10;
+    private static final byte TYPE_CATEGORY = 11;
+    private static final byte TYPE_COMMENT = 12;
+    private static final byte TYPE_MEDIA = 13;
+    private static final byte TYPE_TAG = 14;
+    private static final byte TYPE_USER = 15;
+
+    private final RedisSerializer<Object> fallback;
+
+    /**
+     * @param fallback 不支持二进制格式的类型所使用的序列化器，同时用于读取非二进制格式的旧数据。
+     */
+    public EntityBinaryRedisSerializer(RedisSerializer<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!supports(value)) {
+            return fallback.serialize(value);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            writeValue(out, value);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("二进制序列化失败: " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            in.readByte();
+            int version = in.readByte();
+            if (version > VERSION) {
+                throw new SerializationException("不支持的二进制格式版本: " + version);
+            }
+            return readValue(in, version);
+        } catch (IOException e) {
+            throw new SerializationException("二进制反序列化失败", e);
+        }
+    }
+
+    /**
+     * 判断对象是否可以使用二进制格式，List要求所有元素都支持。
+     */
+    private boolean supports(Object value) {
+        if (value instanceof List<?> list) {
+            for (Object element : list) {
+                if (element == null || element instanceof List || !supports(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Article || value instanceof Category || value instanceof Comment
+                || value instanceof Media || value instanceof Tag || value instanceof User;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String string) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, string);
+        } else if (value instanceof Integer integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt(integer);
+        } else if (value instanceof Long longValue) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong(longValue);
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TYPE_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Article article) {
+            out.writeByte(TYPE_ARTICLE);
+            writeInteger(out, article.getArticleId());
+            writeString(out, article.getArticleTitle());
+            writeString(out, article.getArticleContent());
+            writeInteger(out, article.getUserId());
+            writeInteger(out, article.getCategoryId());
+            writeInteger(out, article.getTagId());
+            writeString(out, article.getBackgroundPath());
+            writeDateTime(out, article.getCreatedAt());
+            writeDateTime(out, article.getUpdatedAt());
+            writeLong(out, article.getViewCount());
+        } else if (value instanceof Category category) {
+            out.writeByte(TYPE_CATEGORY);
+            writeInteger(out, category.getCategoryId());
+            writeString(out, category.getCategoryName());
+            writeDateTime(out, category.getCreatedAt());
+            writeDateTime(out, category.getUpdatedAt());
+        } else if (value instanceof Comment comment) {
+            out.writeByte(TYPE_COMMENT);
+            writeInteger(out, comment.getCommentId());
+            writeInteger(out, comment.getArticleId());
+            writeInteger(out, comment.getUserId());
+            writeString(out, comment.getCommentIp());
+            writeString(out, comment.getCommentContent());
+            writeInteger(out, comment.getCommentRole());
+            writeInteger(out, comment.getParentId());
+            writeDateTime(out, comment.getCreatedAt());
+        } else if (value instanceof Media media) {
+            out.writeByte(TYPE_MEDIA);
+            writeInteger(out, media.getMediaId());
+            writeString(out, media.getMediaName());
+            writeString(out, media.getMediaPath());
+            writeString(out, media.getMediaHash());
+            writeLong(out, media.getMediaSize());
+            writeString(out, media.getMediaVariants());
+        } else if (value instanceof Tag tag) {
+            out.writeByte(TYPE_TAG);
+            writeInteger(out, tag.getTagId());
+            writeString(out, tag.getTagName());
+            writeDateTime(out, tag.getCreatedAt());
+            writeDateTime(out, tag.getUpdatedAt());
+        } else if (value instanceof User user) {
+            out.writeByte(TYPE_USER);
+            writeInteger(out, user.getUserId());
+            writeString(out, user.getUsername());
+            writeString(out, user.getPassword());
+            writeString(out, user.getEmail());
+            writeString(out, user.getAvatarPath());
+            writeString(out, user.getUserNickname());
+            writeInteger(out, user.getUserRole());
+            writeDateTime(out, user.getCreatedAt());
+            writeDateTime(out, user.getUpdatedAt());
+        } else {
+            throw new SerializationException("不支持的类型: " + value.getClass().getName());
+        }
+    }
+
+    private Object readValue(DataInputStream in, int version) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_INTEGER:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, version));
+                }
+                return list;
+            }
+            case TYPE_ARTICLE: {
+                Article article = new Article();
+                article.setArticleId(readInteger(in));
+                article.setArticleTitle(readString(in));
+                article.setArticleContent(readString(in));
+                article.setUserId(readInteger(in));
+                article.setCategoryId(readInteger(in));
+                article.setTagId(readInteger(in));
+                article.setBackgroundPath(readString(in));
+                article.setCreatedAt(readDateTime(in));
+                article.setUpdatedAt(readDateTime(in));
+                if (version >= 4) {
+                    article.setViewCount(readLong(in));
+                }
+                return article;
+            }
+            case TYPE_CATEGORY: {
+                Category category = new Category();
+                category.setCategoryId(readInteger(in));
+                category.setCategoryName(readString(in));
+                category.setCreatedAt(readDateTime(in));
+                category.setUpdatedAt(readDateTime(in));
+                return category;
+            }
+            case TYPE_COMMENT: {
+                Comment comment = new Comment();
+                comment.setCommentId(readInteger(in));
+                comment.setArticleId(readInteger(in));
+                comment.setUserId(readInteger(in));
+                comment.setCommentIp(readString(in));
+                comment.setCommentContent(readString(in));
+                comment.setCommentRole(readInteger(in));
+                comment.setParentId(readInteger(in));
+                comment.setCreatedAt(readDateTime(in));
+                return comment;
+            }
+            case TYPE_MEDIA: {
+                Media media = new Media();
+                media.setMediaId(readInteger(in));
+                media.setMediaName(readString(in));
+                media.setMediaPath(readString(in));
+                if (version >= 2) {
+                    media.setMediaHash(readString(in));
+                    media.setMediaSize(readLong(in));
+                }
+                if (version >= 3) {
+                    media.setMediaVariants(readString(in));
+                }
+                return media;
+            }
+            case TYPE_TAG: {
+                Tag tag = new Tag();
+                tag.setTagId(readInteger(in));
+                tag.setTagName(readString(in));
+                tag.setCreatedAt(readDateTime(in));
+                tag.setUpdatedAt(readDateTime(in));
+                return tag;
+            }
+            case TYPE_USER: {
+                User user = new User();
+                user.setUserId(readInteger(in));
+                user.setUsername(readString(in));
+                user.setPassword(readString(in));
+                user.setEmail(readString(in));
+                user.setAvatarPath(readString(in));
+                user.setUserNickname(readString(in));
+                user.setUserRole(readInteger(in));
+                user.setCreatedAt(readDateTime(in));
+                user.setUpdatedAt(readDateTime(in));
+                return user;
+            }
+            default:
+                throw new SerializationException("未知的类型标记: " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        // writeUTF限制64KB，文章内容可能超过，因此使用长度前缀 + UTF-8字节
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+}
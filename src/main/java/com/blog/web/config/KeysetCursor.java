@@ -0,0 +1,96 @@
+package com.blog.web.config;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 基于 (created_at, id) 的游标，用于按创建时间排序的游标分页。
+ * <p>
+ * 游标对客户端是不透明的字符串（Base64编码），倒序查询时转换为
+ * {@code created_at < ? OR (created_at = ? AND id < ?)} 的条件（正序时为 {@code >}），
+ * 配合 (created_at, id) 索引，任意深度的翻页代价都与第一页相同，且不需要COUNT(*)。
+ */
+public record KeysetCursor(LocalDateTime createdAt, Integer id) {
+
+    /**
+     * 每页最大数量。
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 将最后一条记录的创建时间和ID编码为游标。
+     */
+    public static String encode(LocalDateTime createdAt, Integer id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标。
+     *
+     * @param cursor 客户端传入的游标，为空表示第一页。
+     * @return 解析后的游标；第一页返回null。
+     * @throws IllegalArgumentException 如果游标格式无效。
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Integer.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("游标无效", e);
+        }
+    }
+
+    /**
+     * 限制每页数量在 [1, MAX_PAGE_SIZE] 范围内。
+     */
+    public static int clampPageSize(Integer pageSize) {
+        if (pageSize == null || pageSize < 1) {
+            return 10;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 为查询条件追加游标定位、倒序排序和LIMIT（多查一条用于判断是否还有下一页）。
+     *
+     * @param wrapper   查询条件。
+     * @param cursor    游标，为null表示第一页。
+     * @param createdAt 创建时间列。
+     * @param id        主键列。
+     * @param pageSize  每页数量。
+     * @param <T>       实体类型。
+     * @return 追加条件后的查询条件。
+     */
+    public static <T> LambdaQueryWrapper<T> seek(LambdaQueryWrapper<T> wrapper, KeysetCursor cursor,
+                                                 SFunction<T, ?> createdAt, SFunction<T, ?> id, int pageSize) {
+        if (cursor != null) {
+            wrapper.and(w -> w.lt(createdAt, cursor.createdAt())
+                    .or()
+                    .eq(createdAt, cursor.createdAt()).lt(id, cursor.id()));
+        }
+        return wrapper.orderByDesc(createdAt).orderByDesc(id).last("LIMIT " + (pageSize + 1));
+    }
+
+    /**
+     * 与 {@link #seek} 相同，但按创建时间正序排列，用于按时间先后阅读的回复列表。
+     */
+    public static <T> LambdaQueryWrapper<T> seekAscending(LambdaQueryWrapper<T> wrapper, KeysetCursor cursor,
+                                                          SFunction<T, ?> createdAt, SFunction<T, ?> id, int pageSize) {
+        if (cursor != null) {
+            wrapper.and(w -> w.gt(createdAt, cursor.createdAt())
+                    .or()
+                    .eq(createdAt, cursor.createdAt()).gt(id, cursor.id()));
+        }
+        return wrapper.orderByAsc(createdAt).orderByAsc(id).last("LIMIT " + (pageSize + 1));
+    }
+}
@@ -0,0 +1,51 @@
+package com.blog.web.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 媒体文件读写使用的线程池。
+ * <p>
+ * 线程数和队列长度都有上限，上传过多时直接拒绝，而不是占满Web线程或无限堆积。
+ * 缩略图生成是CPU密集型任务，使用单独的线程池，不影响上传。
+ */
+@Configuration
+public class MediaIoConfig {
+
+    @Value("${media.io.pool-size:4}")
+    private int poolSize;
+
+    @Value("${media.io.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${media.variants.pool-size:2}")
+    private int variantPoolSize;
+
+    @Value("${media.variants.queue-capacity:256}")
+    private int variantQueueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor mediaIoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("media-io-");
+        // 关闭时等待正在写入的文件完成
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor mediaVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(variantPoolSize);
+        executor.setMaxPoolSize(variantPoolSize);
+        executor.setQueueCapacity(variantQueueCapacity);
+        executor.setThreadNamePrefix("media-variant-");
+        return executor;
+    }
+}
@@ -4,11 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
 import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -17,6 +20,13 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  */
 @Configuration
 public class MyRedisConfig {
+
+    /**
+     * 值序列化方式：json（默认，Jackson带类型信息）或 binary（实体紧凑二进制格式）。
+     */
+    @Value("${redis.serializer:json}")
+    private String serializerType;
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
@@ -33,7 +43,12 @@ public class MyRedisConfig {
         objectMapper.activateDefaultTyping(ptv, ObjectMapper.DefaultTyping.NON_FINAL);
 
         // 使用构造器模式设置ObjectMapper到Jackson2JsonRedisSerializer
-        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+        Jackson2JsonRedisSerializer<Object> jsonSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+
+        // 根据配置选择值序列化器，二进制序列化器不支持的类型仍使用JSON
+        RedisSerializer<Object> serializer = "binary".equalsIgnoreCase(serializerType)
+                ? new EntityBinaryRedisSerializer(jsonSerializer)
+                : jsonSerializer;
 
         template.setValueSerializer(serializer);
         template.setKeySerializer(new StringRedisSerializer());
@@ -44,4 +59,14 @@ public class MyRedisConfig {
         return template;
     }
 
+    /**
+     * Redis发布/订阅的消息监听容器，用于接收缓存失效广播。
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
 }
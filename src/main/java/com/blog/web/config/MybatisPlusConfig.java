@@ -21,4 +21,12 @@ public class MybatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
+
+    /**
+     * 插入、删除后清除分页总数缓存。MyBatis-Plus自动配置会把容器中所有的Interceptor注册为插件。
+     */
+    @Bean
+    public CountCacheInterceptor countCacheInterceptor(PageCountCache pageCountCache) {
+        return new CountCacheInterceptor(pageCountCache);
+    }
 }
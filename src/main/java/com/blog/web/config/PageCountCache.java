@@ -0,0 +1,112 @@
+package com.blog.web.config;
+
+import com.blog.web.config.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 分页总数缓存（Mapper -> 表的总行数）。
+ * <p>
+ * 列表接口不带查询条件，总数只与表有关，缓存后分页查询不再每次执行 SELECT COUNT(*)。
+ * 缓存按TTL过期；开启 evict-on-write 时，经由该Mapper的插入和删除执行后清除对应的总数
+ * （见 {@link CountCacheInterceptor}），处于事务中时在事务提交后清除，
+ * 并通过 {@link CacheInvalidationBus} 通知其他节点。
+ */
+@Component
+public class PageCountCache {
+
+    private static final String TOPIC = "page-count";
+
+    @Value("${cache.page-count.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${cache.page-count.evict-on-write:true}")
+    private boolean evictOnWrite;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private Cache<String, Long> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(256)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "page.count");
+        invalidationBus.subscribe(TOPIC, cache::invalidate);
+    }
+
+    /**
+     * 获取总数，缓存未命中时执行counter统计。
+     *
+     * @param mapperClass 表对应的Mapper接口。
+     * @param counter     统计总数的函数，通常为 {@code IService::count}。
+     * @return 总行数。
+     */
+    public long count(Class<?> mapperClass, LongSupplier counter) {
+        return cache.get(mapperClass.getName(), key -> counter.getAsLong());
+    }
+
+    /**
+     * 表数据发生插入或删除后清除对应的总数。
+     * <p>
+     * 处于事务中时推迟到提交之后（回滚则不清除），否则提交前的并发查询会把旧的总数重新放入缓存；
+     * 同一事务内对同一张表的多次写入只清除一次。
+     *
+     * @param namespace Mapper的命名空间，即Mapper接口的全限定名。
+     */
+    @SuppressWarnings("unchecked")
+    public void evict(String namespace) {
+        if (!evictOnWrite) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictNow(namespace);
+            return;
+        }
+        Set<String> namespaces = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (namespaces == null) {
+            Set<String> pending = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PageCountCache.this);
+                    if (status == STATUS_COMMITTED) {
+                        pending.forEach(PageCountCache.this::evictNow);
+                    }
+                }
+            });
+            namespaces = pending;
+        }
+        namespaces.add(namespace);
+    }
+
+    /**
+     * 清除本节点的总数并通知其他节点。
+     */
+    private void evictNow(String namespace) {
+        cache.invalidate(namespace);
+        invalidationBus.publish(TOPIC, namespace);
+    }
+
+}
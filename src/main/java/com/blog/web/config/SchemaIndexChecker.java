@@ -0,0 +1,61 @@
+package com.blog.web.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 启动时检查热点查询所需的索引是否存在。
+ * <p>
+ * 索引由 {@code db/migration} 下的迁移脚本创建；如果迁移被禁用或执行失败，
+ * 登录、评论加载等查询会退化为全表扫描，这里只打印警告，不阻止启动。
+ */
+@Slf4j
+@Component
+public class SchemaIndexChecker implements ApplicationRunner {
+
+    /**
+     * 期望存在的索引：表名 -> 索引名。
+     */
+    private static final Map<String, List<String>> REQUIRED_INDEXES = new LinkedHashMap<>();
+
+    static {
+        REQUIRED_INDEXES.put("user", List.of("uk_user_username", "idx_user_email", "idx_user_created_at"));
+        REQUIRED_INDEXES.put("article", List.of("idx_article_category_id", "idx_article_tag_id", "idx_article_created_at"));
+        REQUIRED_INDEXES.put("comment", List.of("idx_comment_article_parent", "idx_comment_parent_id", "idx_comment_created_at"));
+        REQUIRED_INDEXES.put("media", List.of("idx_media_hash", "idx_media_path"));
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Set<String> existing;
+        try {
+            existing = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT DISTINCT CONCAT(table_name, '.', index_name) FROM information_schema.statistics WHERE table_schema = DATABASE()",
+                    String.class));
+        } catch (Exception e) {
+            log.warn("无法读取索引信息，跳过索引检查", e);
+            return;
+        }
+        REQUIRED_INDEXES.forEach((table, indexes) -> {
+            for (String index : indexes) {
+                if (!existing.contains(table + "." + index)) {
+                    log.warn("缺少索引 {}.{}，相关查询将进行全表扫描，请检查数据库迁移是否已执行", table, index);
+                }
+            }
+        });
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.blog.web.config.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis发布/订阅的缓存失效广播。
+ * <p>
+ * 某个节点修改数据后发布失效消息，集群中所有节点（包括自身）收到后清除各自的本地缓存。
+ * 发布/订阅不保证送达，因此本地缓存仍需设置过期时间作为兜底。
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus {
+
+    private static final String CHANNEL_PREFIX = "cache:invalidate:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    /**
+     * 发布失效消息。
+     *
+     * @param topic 主题，如 "catalog"。
+     * @param key   失效的缓存键。
+     */
+    public void publish(String topic, String key) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL_PREFIX + topic, key);
+        } catch (Exception e) {
+            log.warn("发布缓存失效消息失败, topic={}, key={}", topic, key, e);
+        }
+    }
+
+    /**
+     * 订阅失效消息。
+     *
+     * @param topic    主题。
+     * @param listener 收到消息时的回调，参数为失效的缓存键。
+     */
+    public void subscribe(String topic, Consumer<String> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            Object key = redisTemplate.getValueSerializer().deserialize(message.getBody());
+            if (key != null) {
+                listener.accept(key.toString());
+            }
+        }, new ChannelTopic(CHANNEL_PREFIX + topic));
+    }
+
+}
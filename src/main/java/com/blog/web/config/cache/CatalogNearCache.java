@@ -0,0 +1,175 @@
+package com.blog.web.config.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 分类、标签等目录数据的两级缓存：JVM内快照 + Redis。
+ * <p>
+ * 读取顺序为本地快照、Redis、数据库。Redis中的副本按版本号保存在 {@code catalog:<名称>:<版本号>} 下，
+ * 版本号保存在 {@code catalog:gen:<名称>}；数据修改时递增版本号，并通过 {@link CacheInvalidationBus}
+ * 通知所有节点丢弃本地快照。加载前读取版本号、加载后写入该版本的键，
+ * 失效前开始的加载即使在失效之后才写入，也只会写入不再被读取的旧版本键，不会被任何节点读到。
+ */
+@Slf4j
+@Component
+public class CatalogNearCache {
+
+    public static final String CATEGORY = "category";
+
+    public static final String TAG = "tag";
+
+    private static final String TOPIC = "catalog";
+
+    private static final String KEY_PREFIX = "catalog:";
+
+    private static final String GENERATION_KEY_PREFIX = "catalog:gen:";
+
+    @Value("${cache.catalog.local-ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    @Value("${cache.catalog.redis-ttl-seconds:3600}")
+    private long redisTtlSeconds;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 版本号使用字符串序列化，便于INCR。
+     */
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 每个目录在本节点的版本号，收到失效消息时递增。加载开始后若版本号发生变化，加载结果不再写入本地快照，
+     * 避免并发加载把失效前的旧数据重新放回快照。
+     */
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        invalidationBus.subscribe(TOPIC, this::evictLocal);
+    }
+
+    /**
+     * 获取目录数据。
+     *
+     * @param name   目录名称，如 {@link #CATEGORY}。
+     * @param loader 两级缓存都未命中时从数据库加载的函数。
+     * @param <T>    元素类型。
+     * @return 不可修改的目录列表。
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(String name, Supplier<List<T>> loader) {
+        Snapshot snapshot = snapshots.get(name);
+        if (snapshot != null && !snapshot.isExpired()) {
+            return (List<T>) snapshot.value;
+        }
+
+        long generation = generation(name).get();
+        String redisKey = redisKey(name);
+        List<T> value = redisKey != null ? readRedis(redisKey) : null;
+        if (value == null) {
+            value = loader.get();
+            if (redisKey != null) {
+                writeRedis(redisKey, value);
+            }
+        }
+        List<T> unmodifiable = Collections.unmodifiableList(new ArrayList<>(value));
+        if (generation(name).get() == generation) {
+            snapshots.put(name, new Snapshot(unmodifiable, System.nanoTime() + TimeUnit.SECONDS.toNanos(localTtlSeconds)));
+        }
+        return unmodifiable;
+    }
+
+    /**
+     * 目录数据被修改后调用：递增Redis中的版本号并删除旧版本的副本、丢弃本地快照，并通知其他节点。
+     *
+     * @param name 目录名称。
+     */
+    public void invalidate(String name) {
+        try {
+            Long generation = stringRedisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + name);
+            if (generation != null) {
+                redisTemplate.delete(KEY_PREFIX + name + ":" + (generation - 1));
+            }
+        } catch (Exception e) {
+            log.warn("递增目录缓存版本号失败, name={}", name, e);
+        }
+        evictLocal(name);
+        invalidationBus.publish(TOPIC, name);
+    }
+
+    private void evictLocal(String name) {
+        generation(name).incrementAndGet();
+        snapshots.remove(name);
+    }
+
+    private AtomicLong generation(String name) {
+        return generations.computeIfAbsent(name, k -> new AtomicLong());
+    }
+
+    /**
+     * 当前版本的Redis键。
+     *
+     * @return Redis键；读取版本号失败时返回null，此时不读写Redis副本。
+     */
+    private String redisKey(String name) {
+        try {
+            String generation = stringRedisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + name);
+            return KEY_PREFIX + name + ":" + (generation != null ? generation : "0");
+        } catch (Exception e) {
+            log.warn("读取目录缓存版本号失败, name={}", name, e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> readRedis(String key) {
+        try {
+            Object cached = redisTemplate.opsForValue().get(key);
+            return cached instanceof List ? (List<T>) cached : null;
+        } catch (Exception e) {
+            log.warn("读取目录缓存失败, key={}", key, e);
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, List<?> value) {
+        try {
+            // 使用ArrayList写入，保证JSON和二进制序列化器都能还原
+            redisTemplate.opsForValue().set(key, new ArrayList<>(value), redisTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入目录缓存失败, key={}", key, e);
+        }
+    }
+
+    /**
+     * 本地快照及其过期时刻（System.nanoTime）。
+     */
+    private record Snapshot(List<?> value, long expiresAt) {
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+
+}
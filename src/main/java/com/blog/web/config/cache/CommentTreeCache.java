@@ -0,0 +1,257 @@
+package com.blog.web.config.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.blog.web.config.CommentTreeBuilder;
+import com.blog.web.dto.CommentNode;
+import com.blog.web.entity.Comment;
+import com.blog.web.mapper.CommentMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按文章缓存已构建好的评论树。
+ * <p>
+ * 新增评论时直接插入缓存中的树，不重新查询和构建；修改评论内容时替换节点中的评论对象；
+ * 删除评论、或修改了父评论/时间等影响树结构的字段时丢弃该文章的树，下次读取时重建。
+ * <p>
+ * 读取不加锁：已发布的子评论列表不再修改，插入时复制出新列表再整体替换引用，
+ * 正在序列化旧列表的请求不受影响。写入通过 {@code asMap().computeIfPresent} 按文章串行执行，
+ * 与同一文章的加载互斥。
+ * <p>
+ * 其他节点无法增量修改，通过 {@link CacheInvalidationBus} 通知它们丢弃该文章的树；
+ * 消息带有本节点标识，本节点忽略自己发出的消息。
+ */
+@Component
+public class CommentTreeCache {
+
+    private static final String TOPIC = "comment-tree";
+
+    /**
+     * 本节点标识，用于忽略自己发布的失效消息。
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${cache.comment-tree.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${cache.comment-tree.expire-after-write-seconds:600}")
+    private long expireAfterWriteSeconds;
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Autowired
+    private CommentTreeBuilder commentTreeBuilder;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Integer, Tree> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "comment.tree");
+        invalidationBus.subscribe(TOPIC, message -> {
+            int separator = message.lastIndexOf(':');
+            if (separator > 0 && !message.substring(0, separator).equals(nodeId)) {
+                cache.invalidate(Integer.valueOf(message.substring(separator + 1)));
+            }
+        });
+    }
+
+    /**
+     * 获取文章的评论树，未命中时查询该文章的所有评论并构建。
+     *
+     * @param articleId 文章ID。
+     * @return 根评论节点列表，调用方不能修改。
+     */
+    public List<CommentNode> get(Integer articleId) {
+        return cache.get(articleId, this::load).roots;
+    }
+
+    /**
+     * 评论新增后调用，把新评论插入已缓存的树中。
+     *
+     * @param comment 已保存的评论，必须包含评论ID。
+     */
+    public void onAdded(Comment comment) {
+        if (comment.getArticleId() == null) {
+            return;
+        }
+        cache.asMap().computeIfPresent(comment.getArticleId(), (articleId, tree) -> {
+            tree.insert(comment, commentTreeBuilder.siblingOrder(), commentTreeBuilder.maxDepth());
+            return tree;
+        });
+        publish(comment.getArticleId());
+    }
+
+    /**
+     * 评论修改后调用。只修改了内容、审核状态等字段时替换节点中的评论，否则丢弃整棵树。
+     *
+     * @param before 修改前的评论。
+     * @param after  修改后从数据库重新读取的评论。
+     */
+    public void onUpdated(Comment before, Comment after) {
+        boolean sameShape = Objects.equals(before.getArticleId(), after.getArticleId())
+                && Objects.equals(before.getParentId(), after.getParentId())
+                && Objects.equals(before.getCreatedAt(), after.getCreatedAt());
+        if (!sameShape) {
+            invalidate(before.getArticleId());
+            invalidate(after.getArticleId());
+            return;
+        }
+        cache.asMap().computeIfPresent(after.getArticleId(), (articleId, tree) -> {
+            CommentNode node = tree.nodes.get(after.getCommentId());
+            if (node != null) {
+                node.setComment(after);
+            }
+            return tree;
+        });
+        publish(after.getArticleId());
+    }
+
+    /**
+     * 丢弃文章的评论树（本节点和其他节点），下次读取时重建。
+     *
+     * @param articleId 文章ID，为null时忽略。
+     */
+    public void invalidate(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        cache.invalidate(articleId);
+        publish(articleId);
+    }
+
+    private void publish(Integer articleId) {
+        invalidationBus.publish(TOPIC, nodeId + ":" + articleId);
+    }
+
+    private Tree load(Integer articleId) {
+        List<Comment> comments = commentMapper.selectList(new LambdaQueryWrapper<Comment>().eq(Comment::getArticleId, articleId));
+        return new Tree(commentTreeBuilder.build(comments));
+    }
+
+    /**
+     * 一篇文章的评论树及其索引。索引记录每个节点的显示父节点和显示层级，只在写入时使用。
+     */
+    private static class Tree {
+
+        private volatile List<CommentNode> roots;
+
+        private final Map<Integer, CommentNode> nodes = new HashMap<>();
+
+        /**
+         * 节点的显示父节点，根评论不在其中。
+         */
+        private final Map<Integer, CommentNode> parents = new HashMap<>();
+
+        private final Map<Integer, Integer> depths = new HashMap<>();
+
+        Tree(List<CommentNode> roots) {
+            this.roots = Collections.unmodifiableList(roots);
+            Deque<CommentNode> stack = new ArrayDeque<>(roots);
+            for (CommentNode root : roots) {
+                depths.put(root.getComment().getCommentId(), 1);
+            }
+            while (!stack.isEmpty()) {
+                CommentNode node = stack.pop();
+                Integer id = node.getComment().getCommentId();
+                nodes.put(id, node);
+                if (node.getChildren() != null) {
+                    int childDepth = depths.get(id) + 1;
+                    for (CommentNode child : node.getChildren()) {
+                        Integer childId = child.getComment().getCommentId();
+                        parents.put(childId, node);
+                        depths.put(childId, childDepth);
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+
+        /**
+         * 按与构建时相同的层级和排序规则插入评论。父评论不在树中时忽略，与重建的结果一致。
+         */
+        void insert(Comment comment, Comparator<Comment> order, int maxDepth) {
+            Integer id = comment.getCommentId();
+            if (id == null || nodes.containsKey(id)) {
+                // 加载时已经包含这条评论
+                return;
+            }
+            CommentNode node = new CommentNode(comment);
+            Integer parentId = comment.getParentId();
+            if (parentId == null || parentId == 0) {
+                roots = Collections.unmodifiableList(insertSorted(roots, node, order));
+                nodes.put(id, node);
+                depths.put(id, 1);
+                return;
+            }
+            CommentNode parent = nodes.get(parentId);
+            if (parent == null) {
+                return;
+            }
+            // 父评论已在最大层级时，回复与父评论同级显示
+            int parentDepth = depths.get(parentId);
+            CommentNode anchor = maxDepth <= 0 || parentDepth < maxDepth ? parent : parents.get(parentId);
+            if (anchor == null) {
+                roots = Collections.unmodifiableList(insertSorted(roots, node, order));
+                depths.put(id, 1);
+            } else {
+                List<CommentNode> children = anchor.getChildren() != null ? anchor.getChildren() : List.of();
+                anchor.setChildren(Collections.unmodifiableList(insertSorted(children, node, order)));
+                parents.put(id, anchor);
+                depths.put(id, depths.get(anchor.getComment().getCommentId()) + 1);
+            }
+            nodes.put(id, node);
+        }
+
+        /**
+         * 复制列表并把节点插入到排序位置（相同排序值的节点之后）。
+         */
+        private static List<CommentNode> insertSorted(List<CommentNode> list, CommentNode node, Comparator<Comment> order) {
+            int low = 0;
+            int high = list.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(list.get(mid).getComment(), node.getComment()) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            List<CommentNode> copy = new ArrayList<>(list.size() + 1);
+            copy.addAll(list.subList(0, low));
+            copy.add(node);
+            copy.addAll(list.subList(low, list.size()));
+            return copy;
+        }
+    }
+
+}
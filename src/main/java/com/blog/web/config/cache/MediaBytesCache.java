@@ -0,0 +1,222 @@
+package com.blog.web.config.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 热点媒体文件内容的本地缓存（文件路径 -> 文件内容）。
+ * <p>
+ * 头像、文章背景图等文件每次请求都要读盘，缓存后直接从内存返回。内容保存在堆外的直接缓冲区中，
+ * 不计入堆内存，也不增加GC扫描的负担；总容量按字节计算（W-TinyLFU淘汰），超过单文件上限的文件不缓存。
+ * 直接缓冲区在条目被淘汰、对象被回收后释放，占用受 {@code -XX:MaxDirectMemorySize} 限制（默认与最大堆相同）。
+ * <p>
+ * 条目记录文件的大小和修改时间，读取时与调用方取得的文件属性比较，不一致时重新加载，
+ * 因此文件被覆盖或被其他节点删除重建后不会返回旧内容。删除文件时应调用 {@link #invalidate(Path)} 及时释放内存。
+ */
+@Slf4j
+@Component
+public class MediaBytesCache {
+
+    @Value("${cache.media-bytes.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.media-bytes.capacity-mb:64}")
+    private long capacityMb;
+
+    /**
+     * 单个文件的缓存上限（KB），更大的文件直接从磁盘读取。
+     */
+    @Value("${cache.media-bytes.max-entry-kb:2048}")
+    private long maxEntryKb;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Path, Entry> cache;
+
+    private Counter servedBytes;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(capacityMb * 1024 * 1024)
+                .weigher((Path path, Entry entry) -> entry.buffer.capacity())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "media.bytes");
+        Gauge.builder("media.bytes.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("媒体内容缓存命中率")
+                .register(meterRegistry);
+        Gauge.builder("media.bytes.cache.weighted.size", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("媒体内容缓存占用的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.servedBytes = Counter.builder("media.bytes.cache.served")
+                .description("从媒体内容缓存返回的字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取文件内容，未命中时读入缓存。
+     *
+     * @param path         文件路径。
+     * @param size         调用方读取到的文件大小。
+     * @param lastModified 调用方读取到的修改时间（毫秒）。
+     * @return 基于缓存内容的Resource；缓存关闭、文件过大或读取失败时返回null，调用方应直接读取文件。
+     */
+    public Resource get(Path path, long size, long lastModified) {
+        if (!enabled || size > maxEntryKb * 1024) {
+            return null;
+        }
+        Entry entry = cache.get(path, p -> load(p, size, lastModified));
+        if (entry != null && (entry.size != size || entry.lastModified != lastModified)) {
+            // 文件已被替换，丢弃旧内容后重新加载
+            cache.asMap().remove(path, entry);
+            entry = cache.get(path, p -> load(p, size, lastModified));
+        }
+        return entry != null ? new CachedResource(path, entry.buffer, servedBytes) : null;
+    }
+
+    /**
+     * 使指定文件的缓存失效。
+     *
+     * @param path 文件路径。
+     */
+    public void invalidate(Path path) {
+        cache.invalidate(path);
+    }
+
+    private Entry load(Path path, long size, long lastModified) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            if (buffer.hasRemaining() || channel.position() != channel.size()) {
+                // 读取期间文件大小发生变化
+                return null;
+            }
+            buffer.flip();
+            return new Entry(buffer.asReadOnlyBuffer(), size, lastModified);
+        } catch (IOException e) {
+            log.warn("读取媒体文件到缓存失败, path={}", path, e);
+            return null;
+        }
+    }
+
+    private record Entry(ByteBuffer buffer, long size, long lastModified) {
+    }
+
+    /**
+     * 基于缓存内容的Resource，每次打开流都使用缓冲区的独立副本，可并发读取。
+     * Range请求通过流的skip定位，不复制内容。
+     */
+    private static class CachedResource extends AbstractResource {
+
+        private final Path path;
+
+        private final ByteBuffer buffer;
+
+        private final Counter servedBytes;
+
+        CachedResource(Path path, ByteBuffer buffer, Counter servedBytes) {
+            this.path = path;
+            this.buffer = buffer;
+            this.servedBytes = servedBytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer view = buffer.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    servedBytes.increment();
+                    return view.get() & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!view.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, view.remaining());
+                    view.get(b, off, n);
+                    servedBytes.increment(n);
+                    return n;
+                }
+
+                @Override
+                public long skip(long n) {
+                    int skipped = (int) Math.max(0, Math.min(n, view.remaining()));
+                    view.position(view.position() + skipped);
+                    return skipped;
+                }
+
+                @Override
+                public int available() {
+                    return view.remaining();
+                }
+            };
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.capacity();
+        }
+
+        @Override
+        public String getFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached media [" + path + "]";
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof CachedResource that && path.equals(that.path));
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+    }
+
+}
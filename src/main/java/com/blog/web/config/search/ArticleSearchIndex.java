@@ -0,0 +1,415 @@
+package com.blog.web.config.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.blog.web.config.cache.CacheInvalidationBus;
+import com.blog.web.dto.ArticleSummary;
+import com.blog.web.entity.Article;
+import com.blog.web.mapper.ArticleMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 文章全文检索，基于嵌入式Lucene倒排索引。
+ * <p>
+ * 标题和正文使用SmartCN中文分词建立索引，查询按相关度排序（标题权重更高），相同得分按创建时间倒序。
+ * 列表需要的字段和正文摘录保存在索引中，查询结果不访问数据库。
+ * <p>
+ * 索引保存在每个节点的本地目录中。文章写入后由服务层调用 {@link #reindex(Integer)} 从数据库重新读取并更新索引，
+ * 同时通过 {@link CacheInvalidationBus} 通知其他节点各自更新；广播可能丢失，因此启动时在后台从数据库重建索引，
+ * 重建期间继续使用已有索引提供查询。
+ */
+@Slf4j
+@Component
+public class ArticleSearchIndex {
+
+    private static final String TOPIC = "article-search";
+
+    /**
+     * 重建时每次查询的文章数量。
+     */
+    private static final int REBUILD_BATCH = 500;
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final String FIELD_EXCERPT = "excerpt";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_CATEGORY_ID = "categoryId";
+    private static final String FIELD_TAG_ID = "tagId";
+    private static final String FIELD_BACKGROUND_PATH = "backgroundPath";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+    private static final String FIELD_GENERATION = "generation";
+
+    /**
+     * 本节点标识，用于忽略自己发布的更新消息。
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${search.index-path:data/search-index}")
+    private String indexPath;
+
+    @Value("${search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    /**
+     * 标题相对正文的权重。
+     */
+    @Value("${search.title-boost:2.0}")
+    private float titleBoost;
+
+    /**
+     * 可翻页的最大结果数，更深的页返回空列表。
+     */
+    @Value("${search.max-results:1000}")
+    private int maxResults;
+
+    @Value("${article.excerpt-length:150}")
+    private int excerptLength;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private Analyzer analyzer;
+
+    private Directory directory;
+
+    private IndexWriter writer;
+
+    private SearcherManager searcherManager;
+
+    /**
+     * 当前索引代数，每次重建加一；初始值取启动时间，与之前进程写入的代数区分。
+     */
+    private long generation = System.currentTimeMillis();
+
+    private boolean rebuilding;
+
+    /**
+     * 重建期间被修改的文章ID，重建完成后重新索引。
+     */
+    private final Set<Integer> modifiedDuringRebuild = new HashSet<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        open();
+        invalidationBus.subscribe(TOPIC, message -> {
+            int separator = message.lastIndexOf(':');
+            if (separator > 0 && !message.substring(0, separator).equals(nodeId)) {
+                reindexQuietly(Integer.valueOf(message.substring(separator + 1)));
+            }
+        });
+        if (rebuildOnStartup) {
+            Thread thread = new Thread(this::rebuildQuietly, "article-search-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 打开索引目录，目录不存在时创建空索引。
+     *
+     * @throws IOException 如果索引目录无法打开或已被其他进程锁定。
+     */
+    public void open() throws IOException {
+        analyzer = new SmartChineseAnalyzer();
+        directory = FSDirectory.open(Paths.get(indexPath));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+        analyzer.close();
+    }
+
+    /**
+     * 从数据库读取文章并更新索引，文章已不存在时从索引中删除，然后通知其他节点。
+     *
+     * @param articleId 文章ID。
+     */
+    public void reindex(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        reindexQuietly(articleId);
+        invalidationBus.publish(TOPIC, nodeId + ":" + articleId);
+    }
+
+    /**
+     * 批量写入文章并提交，立即对查询可见。
+     *
+     * @param articles 完整的文章对象。
+     */
+    public void indexBatch(List<Article> articles) {
+        String generation;
+        synchronized (this) {
+            generation = Long.toString(this.generation);
+        }
+        try {
+            for (Article article : articles) {
+                writer.updateDocument(new Term(FIELD_ID, article.getArticleId().toString()), toDocument(article, generation));
+            }
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 按相关度分页检索文章。
+     * <p>
+     * 关键词分词后，所有词都出现在标题中或都出现在正文中的文章才会命中。
+     *
+     * @param keyword 关键词。
+     * @param page    分页参数，查询结果和总数写入其中。
+     * @return 文章摘要分页结果；关键词为空或分词后没有有效词时返回空结果。
+     */
+    public IPage<ArticleSummary> search(String keyword, IPage<ArticleSummary> page) {
+        page.setRecords(new ArrayList<>());
+        page.setTotal(0);
+        Query query = buildQuery(keyword);
+        if (query == null) {
+            return page;
+        }
+        long offset = Math.max(0, (page.getCurrent() - 1) * page.getSize());
+        int limit = (int) Math.min(offset + page.getSize(), maxResults);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                page.setTotal(searcher.count(query));
+                if (offset >= limit) {
+                    return page;
+                }
+                Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(FIELD_CREATED_AT, SortField.Type.LONG, true));
+                TopDocs topDocs = searcher.search(query, limit, sort);
+                List<ArticleSummary> rows = new ArrayList<>();
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                for (int i = (int) offset; i < hits.length; i++) {
+                    rows.add(toSummary(searcher.storedFields().document(hits[i].doc)));
+                }
+                page.setRecords(rows);
+                return page;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 从数据库按ID分批重建索引。
+     * <p>
+     * 所有文章按ID覆盖写入并标记本次重建的代数，完成后删除代数不同的文档（已删除的文章）。
+     * 重建期间查询仍然可用，结果逐步更新；中途失败时已写入的文档仍然有效。
+     *
+     * @throws IOException 如果写入索引失败。
+     */
+    public void rebuild() throws IOException {
+        String generation;
+        synchronized (this) {
+            generation = Long.toString(++this.generation);
+            rebuilding = true;
+        }
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            Integer lastId = 0;
+            while (true) {
+                List<Article> batch = articleMapper.selectList(new LambdaQueryWrapper<Article>()
+                        .gt(Article::getArticleId, lastId)
+                        .orderByAsc(Article::getArticleId)
+                        .last("LIMIT " + REBUILD_BATCH));
+                for (Article article : batch) {
+                    writer.updateDocument(new Term(FIELD_ID, article.getArticleId().toString()), toDocument(article, generation));
+                }
+                count += batch.size();
+                if (batch.size() < REBUILD_BATCH) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getArticleId();
+            }
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                    .add(new TermQuery(new Term(FIELD_GENERATION, generation)), BooleanClause.Occur.MUST_NOT)
+                    .build());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } finally {
+            Set<Integer> modified;
+            synchronized (this) {
+                rebuilding = false;
+                modified = new HashSet<>(modifiedDuringRebuild);
+                modifiedDuringRebuild.clear();
+            }
+            // 重建读到的可能是修改前的数据，重新索引期间被修改的文章
+            modified.forEach(this::reindexQuietly);
+        }
+        log.info("文章搜索索引重建完成, 文章数={}, 耗时={}ms", count, System.currentTimeMillis() - start);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (IOException | RuntimeException e) {
+            log.warn("文章搜索索引重建失败，继续使用已有索引", e);
+        }
+    }
+
+    private void reindexQuietly(Integer articleId) {
+        String generation;
+        synchronized (this) {
+            if (rebuilding) {
+                modifiedDuringRebuild.add(articleId);
+            }
+            generation = Long.toString(this.generation);
+        }
+        try {
+            Article article = articleMapper.selectById(articleId);
+            if (article != null) {
+                writer.updateDocument(new Term(FIELD_ID, articleId.toString()), toDocument(article, generation));
+            } else {
+                writer.deleteDocuments(new Term(FIELD_ID, articleId.toString()));
+            }
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException | RuntimeException e) {
+            // 索引失败不影响文章写入，下次重建时修正
+            log.warn("更新文章搜索索引失败, articleId={}", articleId, e);
+        }
+    }
+
+    private Query buildQuery(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return null;
+        }
+        QueryBuilder builder = new QueryBuilder(analyzer);
+        Query title = builder.createBooleanQuery(FIELD_TITLE, keyword, BooleanClause.Occur.MUST);
+        Query content = builder.createBooleanQuery(FIELD_CONTENT, keyword, BooleanClause.Occur.MUST);
+        if (title == null && content == null) {
+            // 关键词全部是停用词或标点
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        if (title != null) {
+            query.add(new BoostQuery(title, titleBoost), BooleanClause.Occur.SHOULD);
+        }
+        if (content != null) {
+            query.add(content, BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+
+    private Document toDocument(Article article, String generation) {
+        String content = article.getArticleContent() != null ? article.getArticleContent() : "";
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, article.getArticleId().toString(), Field.Store.YES));
+        document.add(new StringField(FIELD_GENERATION, generation, Field.Store.NO));
+        if (article.getArticleTitle() != null) {
+            document.add(new TextField(FIELD_TITLE, article.getArticleTitle(), Field.Store.YES));
+        }
+        document.add(new TextField(FIELD_CONTENT, content, Field.Store.NO));
+        document.add(new StoredField(FIELD_EXCERPT, content.substring(0, Math.min(content.length(), excerptLength))));
+        addInt(document, FIELD_USER_ID, article.getUserId());
+        addInt(document, FIELD_CATEGORY_ID, article.getCategoryId());
+        addInt(document, FIELD_TAG_ID, article.getTagId());
+        if (article.getBackgroundPath() != null) {
+            document.add(new StoredField(FIELD_BACKGROUND_PATH, article.getBackgroundPath()));
+        }
+        long createdAt = toMillis(article.getCreatedAt());
+        document.add(new StoredField(FIELD_CREATED_AT, createdAt));
+        document.add(new NumericDocValuesField(FIELD_CREATED_AT, createdAt));
+        if (article.getUpdatedAt() != null) {
+            document.add(new StoredField(FIELD_UPDATED_AT, toMillis(article.getUpdatedAt())));
+        }
+        return document;
+    }
+
+    private static ArticleSummary toSummary(Document document) {
+        ArticleSummary summary = new ArticleSummary();
+        summary.setArticleId(Integer.valueOf(document.get(FIELD_ID)));
+        summary.setArticleTitle(document.get(FIELD_TITLE));
+        summary.setExcerpt(document.get(FIELD_EXCERPT));
+        summary.setUserId(getInt(document, FIELD_USER_ID));
+        summary.setCategoryId(getInt(document, FIELD_CATEGORY_ID));
+        summary.setTagId(getInt(document, FIELD_TAG_ID));
+        summary.setBackgroundPath(document.get(FIELD_BACKGROUND_PATH));
+        summary.setCreatedAt(getDateTime(document, FIELD_CREATED_AT));
+        summary.setUpdatedAt(getDateTime(document, FIELD_UPDATED_AT));
+        return summary;
+    }
+
+    private static void addInt(Document document, String field, Integer value) {
+        if (value != null) {
+            document.add(new StoredField(field, value));
+        }
+    }
+
+    private static Integer getInt(Document document, String field) {
+        Number value = document.getField(field) != null ? document.getField(field).numericValue() : null;
+        return value != null ? value.intValue() : null;
+    }
+
+    private static long toMillis(LocalDateTime value) {
+        return value != null ? value.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+
+    private static LocalDateTime getDateTime(Document document, String field) {
+        Number value = document.getField(field) != null ? document.getField(field).numericValue() : null;
+        return value != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(value.longValue()), ZoneOffset.UTC) : null;
+    }
+
+}
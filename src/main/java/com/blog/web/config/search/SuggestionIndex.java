@@ -0,0 +1,268 @@
+package com.blog.web.config.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.blog.web.config.cache.CacheInvalidationBus;
+import com.blog.web.dto.Suggestion;
+import com.blog.web.entity.Article;
+import com.blog.web.entity.Category;
+import com.blog.web.entity.Tag;
+import com.blog.web.mapper.ArticleMapper;
+import com.blog.web.mapper.CategoryMapper;
+import com.blog.web.mapper.TagMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 文章标题、标签名、分类名的前缀输入提示，全部在内存中完成，不访问数据库。
+ * <p>
+ * 每种类型一个有序跳表，键为规范化后的文本（NFKC，小写）加上ID，前缀查询即取 [前缀, 前缀+'\uffff') 区间的前几项，
+ * 耗时与数据量的对数成正比，读取不加锁。启动完成后从数据库加载全部数据；
+ * 新增、修改、删除时由服务层调用 {@link #put}/{@link #remove} 更新，并通过 {@link CacheInvalidationBus}
+ * 通知其他节点从数据库重新读取该条数据。
+ */
+@Slf4j
+@Component
+public class SuggestionIndex implements ApplicationRunner {
+
+    public static final String ARTICLE = "article";
+
+    public static final String TAG = "tag";
+
+    public static final String CATEGORY = "category";
+
+    /**
+     * 不指定类型时的返回顺序：标签、分类在前，文章标题在后。
+     */
+    private static final List<String> TYPES = List.of(TAG, CATEGORY, ARTICLE);
+
+    private static final String TOPIC = "suggestion";
+
+    /**
+     * 键中文本与ID的分隔符，小于任何可输入的字符，保证同一文本的不同ID排在一起。
+     */
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * 本节点标识，用于忽略自己发布的更新消息。
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    /**
+     * 类型 -> (规范化文本 + 分隔符 + ID -> 提示项)。
+     */
+    private final Map<String, ConcurrentSkipListMap<String, Suggestion>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 类型 -> (ID -> 跳表中的键)，用于修改和删除时找到旧的键。
+     */
+    private final Map<String, ConcurrentHashMap<Integer, String>> keys = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String type : TYPES) {
+            entries.put(type, new ConcurrentSkipListMap<>());
+            keys.put(type, new ConcurrentHashMap<>());
+        }
+        invalidationBus.subscribe(TOPIC, message -> {
+            String[] parts = message.split(":");
+            if (parts.length == 3 && !parts[0].equals(nodeId)) {
+                reload(parts[1], Integer.valueOf(parts[2]));
+            }
+        });
+    }
+
+    /**
+     * 启动完成后（数据库迁移已执行）加载全部数据。
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        try {
+            for (Tag tag : tagMapper.selectList(new LambdaQueryWrapper<Tag>().select(Tag::getTagId, Tag::getTagName))) {
+                putLocal(TAG, tag.getTagId(), tag.getTagName());
+            }
+            for (Category category : categoryMapper.selectList(new LambdaQueryWrapper<Category>()
+                    .select(Category::getCategoryId, Category::getCategoryName))) {
+                putLocal(CATEGORY, category.getCategoryId(), category.getCategoryName());
+            }
+            for (Article article : articleMapper.selectList(new LambdaQueryWrapper<Article>()
+                    .select(Article::getArticleId, Article::getArticleTitle))) {
+                putLocal(ARTICLE, article.getArticleId(), article.getArticleTitle());
+            }
+        } catch (Exception e) {
+            log.warn("加载输入提示数据失败", e);
+            return;
+        }
+        log.info("输入提示数据加载完成, 文章={}, 标签={}, 分类={}, 耗时={}ms", keys.get(ARTICLE).size(),
+                keys.get(TAG).size(), keys.get(CATEGORY).size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 前缀查询。
+     *
+     * @param prefix 用户已输入的文本。
+     * @param type   类型，为null时查询所有类型。
+     * @param limit  每种类型最多返回的条数。
+     * @return 按文本排序的提示项；前缀为空时返回空列表。
+     */
+    public List<Suggestion> suggest(String prefix, String type, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Suggestion> result = new ArrayList<>();
+        for (String candidate : TYPES) {
+            if (type != null && !type.equals(candidate)) {
+                continue;
+            }
+            ConcurrentNavigableMap<String, Suggestion> range = entries.get(candidate)
+                    .subMap(normalized, true, normalized + '\uffff', false);
+            int count = 0;
+            for (Suggestion suggestion : range.values()) {
+                if (count++ == limit) {
+                    break;
+                }
+                result.add(suggestion);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取已加载的文本，如文章标题。
+     *
+     * @param type 类型。
+     * @param id   ID。
+     * @return 文本；不存在或尚未加载时返回null。
+     */
+    public String text(String type, Integer id) {
+        ConcurrentHashMap<Integer, String> typeKeys = keys.get(type);
+        String key = typeKeys != null && id != null ? typeKeys.get(id) : null;
+        Suggestion suggestion = key != null ? entries.get(type).get(key) : null;
+        return suggestion != null ? suggestion.getText() : null;
+    }
+
+    /**
+     * 新增或修改后调用，更新本节点并通知其他节点。
+     *
+     * @param type 类型。
+     * @param id   ID。
+     * @param text 新的文本，为null时表示该字段没有修改，不做处理。
+     */
+    public void put(String type, Integer id, String text) {
+        if (id == null || text == null) {
+            return;
+        }
+        putLocal(type, id, text);
+        invalidationBus.publish(TOPIC, nodeId + ":" + type + ":" + id);
+    }
+
+    /**
+     * 删除后调用，更新本节点并通知其他节点。
+     *
+     * @param type 类型。
+     * @param id   ID。
+     */
+    public void remove(String type, Integer id) {
+        if (id == null) {
+            return;
+        }
+        removeLocal(type, id);
+        invalidationBus.publish(TOPIC, nodeId + ":" + type + ":" + id);
+    }
+
+    private void putLocal(String type, Integer id, String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            removeLocal(type, id);
+            return;
+        }
+        ConcurrentSkipListMap<String, Suggestion> typeEntries = entries.get(type);
+        String key = normalized + SEPARATOR + id;
+        // 同一ID的修改串行执行，先插入新键再删除旧键，读取方不会看到该项短暂消失
+        keys.get(type).compute(id, (k, oldKey) -> {
+            typeEntries.put(key, new Suggestion(type, id, text));
+            if (oldKey != null && !oldKey.equals(key)) {
+                typeEntries.remove(oldKey);
+            }
+            return key;
+        });
+    }
+
+    private void removeLocal(String type, Integer id) {
+        ConcurrentSkipListMap<String, Suggestion> typeEntries = entries.get(type);
+        keys.get(type).computeIfPresent(id, (k, oldKey) -> {
+            typeEntries.remove(oldKey);
+            return null;
+        });
+    }
+
+    /**
+     * 其他节点修改数据后，从数据库重新读取该条数据。
+     */
+    private void reload(String type, Integer id) {
+        try {
+            String text = switch (type) {
+                case ARTICLE -> {
+                    Article article = articleMapper.selectById(id);
+                    yield article != null ? article.getArticleTitle() : null;
+                }
+                case TAG -> {
+                    Tag tag = tagMapper.selectById(id);
+                    yield tag != null ? tag.getTagName() : null;
+                }
+                case CATEGORY -> {
+                    Category category = categoryMapper.selectById(id);
+                    yield category != null ? category.getCategoryName() : null;
+                }
+                default -> null;
+            };
+            if (text != null) {
+                putLocal(type, id, text);
+            } else if (keys.containsKey(type)) {
+                removeLocal(type, id);
+            }
+        } catch (Exception e) {
+            log.warn("更新输入提示失败, type={}, id={}", type, id, e);
+        }
+    }
+
+    /**
+     * 规范化：NFKC（全角转半角等）、小写、去掉首尾空白并合并连续空白。
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return normalized.strip().replaceAll("\\s+", " ");
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.blog.web.config.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,6 +22,11 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * 令牌被刷新时，通过该响应头将新令牌返回给客户端。
+     */
+    public static final String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
+
     @Autowired
     private JwtUtilService jwtUtilService;
 
@@ -30,10 +36,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * 处理过滤请求以进行JWT认证。
      * 从请求头中提取令牌，刷新令牌，并在认证成功后设置安全上下文。
+     * 令牌在每个请求中只解析和校验签名一次，解析得到的声明传递给刷新和验证步骤。
      * 如果用户已认证，则直接通过过滤器链。
      *
      * @param request     HTTP请求，用于获取请求头中的令牌。
-     * @param response    HTTP响应，当前方法中不直接使用，但必须作为参数传递给过滤器链。
+     * @param response    HTTP响应，令牌被刷新时用于返回新令牌，并传递给过滤器链。
      * @param filterChain 过滤器链，用于继续处理请求。
      * @throws ServletException 如果过滤器处理过程中出现Servlet相关异常。
      * @throws IOException      如果过滤器处理过程中出现IO相关异常。
@@ -44,21 +51,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
         String token = null;
         String username = null;
+        Claims claims = null;
 
         // 如果Authorization头存在且以"Bearer "开始，则进行处理
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7); // 去掉"Bearer "前缀
-            // 从令牌中提取用户名
-            username = jwtUtilService.extractUsernameFromToken(token);
-            // 刷新令牌
-            token = jwtUtilService.refreshToken(token, 5);
+            // 解析令牌并检查会话是否仍有效，整个请求只校验一次签名
+            claims = jwtUtilService.parseToken(token);
+            if (claims != null) {
+                // 从声明中提取用户名
+                username = claims.getSubject();
+                // 刷新令牌，刷新后通过响应头返回新令牌
+                String refreshed = jwtUtilService.refreshToken(claims, token, 5);
+                if (!refreshed.equals(token)) {
+                    response.setHeader(REFRESH_TOKEN_HEADER, refreshed);
+                }
+            }
         }
 
         // 如果用户名不为空且安全上下文中没有认证信息，则进行认证
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
             // 验证令牌的有效性
-            if (jwtUtilService.validateToken(token)) {
+            if (jwtUtilService.validateToken(claims)) {
                 // 创建新的认证令牌
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
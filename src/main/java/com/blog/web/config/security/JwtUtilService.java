@@ -1,47 +1,112 @@
 package com.blog.web.config.security;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.blog.web.entity.User;
-import com.blog.web.mapper.UserMapper;
+import com.blog.web.config.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecureDigestAlgorithm;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.concurrent.TimeUnit;
 
 /**
  * @author 苍晖
  * @since 2024/7/7 下午4:55
  */
+@Slf4j
 @Service
 public class JwtUtilService {
 
+    /**
+     * 已校验令牌缓存的失效广播主题，消息为用户名。
+     */
+    private static final String TOPIC = "verified-token";
+
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${cache.verified-token.maximum-size:50000}")
+    private long verifiedTokenMaximumSize;
+
+    @Value("${jwt.refresh.reuse-seconds:60}")
+    private long refreshReuseSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MyUserDetailsService userDetailsService;
+
     @Autowired
-    private UserMapper userMapper;
+    private TokenSessionStore tokenSessionStore;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private CacheInvalidationBus invalidationBus;
 
     private SecretKey KEY;
 
+    /**
+     * 预先构建的JWT解析器，JwtParser是不可变且线程安全的，可在所有请求间复用。
+     */
+    private JwtParser parser;
+
+    /**
+     * 已校验令牌的缓存（令牌SHA-256摘要 -> 声明），条目在令牌的exp时刻过期。
+     * 同一令牌的重复请求直接命中缓存，跳过签名校验和会话检查；
+     * 用户登出或被删除时通过 {@link #evictUser(String)} 在所有节点上清除该用户的条目。
+     */
+    private Cache<String, Claims> verifiedTokens;
+
+    /**
+     * 刷新后的令牌（用户名 -> 新令牌）。同一用户在短时间内的并发刷新只签发一次令牌，
+     * 其余请求复用该结果，避免临近过期时的请求突发签发大量令牌、写入大量Redis。
+     */
+    private Cache<String, String> refreshedTokens;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private final static SecureDigestAlgorithm<SecretKey, SecretKey> ALGORITHM = Jwts.SIG.HS256;
 
     @PostConstruct
     public void init() {
         this.KEY = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(KEY).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenMaximumSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+        // 通过actuator的metrics端点暴露命中率等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-token");
+        this.refreshedTokens = Caffeine.newBuilder()
+                .expireAfterWrite(refreshReuseSeconds, TimeUnit.SECONDS)
+                .build();
+        invalidationBus.subscribe(TOPIC, this::evictUserLocal);
     }
 
     /**
@@ -55,13 +120,27 @@ public class JwtUtilService {
      * @return 生成的JWT令牌字符串。
      */
     public String createToken(String username) {
+        String token = buildToken(username);
+        tokenSessionStore.issue(username, token);
+        // 新的登录替换了之前的会话：旧令牌在所有节点上都要重新检查会话，也不再复用之前刷新得到的令牌
+        evictUser(username);
+        return token;
+    }
+
+    /**
+     * 构建并签名一个30分钟内有效的JWT令牌，不写入Redis。
+     *
+     * @param username 令牌的主题，即用户名。
+     * @return 生成的JWT令牌字符串。
+     */
+    private String buildToken(String username) {
         // 获取当前时间并添加30分钟，设置令牌的过期时间
         Calendar instance = Calendar.getInstance();
-        instance.add(Calendar.MINUTE, 30);
+        instance.add(Calendar.MINUTE, (int) TokenSessionStore.SESSION_MINUTES);
 
         // 使用JWT库的builder模式构建令牌
         // 设置主题（用户名）、发行时间、过期时间，并使用预定义的私钥对令牌进行签名
-        String token = Jwts.builder()
+        return Jwts.builder()
                 .header()
                 .add("typ", "JWT")
                 .add("alg", "HS256")
@@ -71,30 +150,104 @@ public class JwtUtilService {
                 .expiration(instance.getTime())
                 .signWith(KEY, ALGORITHM)
                 .compact();
+    }
 
-        redisTemplate.opsForValue().set("token:" + username, token, 30, TimeUnit.MINUTES);
+    /**
+     * 为刷新签发新令牌，Redis写入交给会话存储在后台批量完成，不阻塞请求线程。
+     * 只有Redis中仍是刷新前的令牌时才写入；会话在此期间被注销或被新的登录替换时，
+     * 新令牌从本节点的缓存中移除，之后使用它的请求会因会话检查失败而被拒绝。
+     *
+     * @param username 用户名。
+     * @param previous 刷新前的令牌。
+     * @return 新的JWT令牌。
+     */
+    private String issueRefreshedToken(String username, String previous) {
+        String token = buildToken(username);
+        String digest = digest(token);
+        // 后台写入Redis之前客户端就可能使用新令牌，先放入本节点的已校验令牌缓存
+        verifiedTokens.put(digest, parser.parseSignedClaims(token).getPayload());
+        // 队列已满时写入在当前线程同步完成，此时仍处于refreshedTokens的计算中，回调需要换到其他线程执行
+        tokenSessionStore.replaceAsync(username, previous, token).thenAcceptAsync(replaced -> {
+            if (!replaced) {
+                verifiedTokens.invalidate(digest);
+                refreshedTokens.asMap().remove(username, token);
+            }
+        });
         return token;
     }
 
     /**
      * 解析JWT令牌并返回其中的声明。
+     * <p>
+     * 每个请求只应调用一次，解析得到的声明对象随后传递给刷新和验证步骤，避免重复校验签名。
+     * 缓存未命中时除校验签名外，还要求Redis中该用户的会话仍是这个令牌（未登出、未被注销、未被新的登录替换）；
+     * 校验通过的令牌按摘要缓存至其过期时刻，同一令牌的后续请求不再校验签名和会话。
      *
      * @param token 待解析的JWT令牌。
-     * @return 如果解析成功，返回包含声明的Claims对象；如果解析失败，返回null。
+     * @return 如果解析成功且会话有效，返回包含声明的Claims对象；否则返回null。
      */
     public Claims parseToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims;
         try {
-            // 使用JJWT库创建解析器构建器，设置签名密钥为预定义的secret，然后构建解析器。
-            // 使用解析器解析JWT令牌并获取Claims部分。
-            return Jwts.parser()
-                    .verifyWith(KEY)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            // 使用预先构建的解析器校验签名并获取Claims部分。
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (Exception e) {
             // 解析失败时，捕获异常并返回null。
             return null;
         }
+        try {
+            if (claims.getSubject() == null || !tokenSessionStore.isActive(claims.getSubject(), token)) {
+                return null;
+            }
+        } catch (Exception e) {
+            // 无法确认会话状态时按无效处理，不放入缓存
+            log.warn("检查会话失败, username={}", claims.getSubject(), e);
+            return null;
+        }
+        // 没有过期时间的令牌无法确定缓存时长，不放入缓存
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * 将用户的所有令牌从已校验令牌缓存中移除，并通知其他节点。用户登出或被删除、会话被注销后调用，
+     * 之后该用户的令牌在任何节点上都要重新检查会话。
+     *
+     * @param username 用户名，为null时忽略。
+     */
+    public void evictUser(String username) {
+        if (username != null) {
+            evictUserLocal(username);
+            invalidationBus.publish(TOPIC, username);
+        }
+    }
+
+    private void evictUserLocal(String username) {
+        // 按用户删除需要遍历缓存，只在登出、删除用户等低频操作时发生
+        verifiedTokens.asMap().values().removeIf(claims -> username.equals(claims.getSubject()));
+        refreshedTokens.invalidate(username);
+    }
+
+    /**
+     * 计算令牌的SHA-256摘要，作为缓存键，避免在内存中保存完整令牌。
+     *
+     * @param token JWT令牌。
+     * @return 十六进制摘要字符串。
+     */
+    private String digest(String token) {
+        MessageDigest messageDigest = SHA256.get();
+        messageDigest.reset();
+        return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
     }
 
 
@@ -110,16 +263,26 @@ public class JwtUtilService {
     public boolean isExpired(String token) {
         try {
             // 解析JWT令牌，获取其中的声明（Claims）
-            Claims claims = Jwts.parser().verifyWith(KEY).build().parseSignedClaims(token).getPayload();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
 
-            // 检查令牌的过期时间是否早于当前时间
-            return claims.getExpiration().before(new Date());
+            return isExpired(claims);
         } catch (SignatureException e) {
             // 如果签名无效，说明令牌已过期或被篡改，返回true
             return true;
         }
     }
 
+    /**
+     * 根据已解析的声明检查令牌是否过期。
+     *
+     * @param claims 解析后的令牌声明。
+     * @return 如果令牌过期，则返回true；否则返回false。
+     */
+    public boolean isExpired(Claims claims) {
+        // 检查令牌的过期时间是否早于当前时间
+        return claims.getExpiration().before(new Date());
+    }
+
     /**
      * 刷新JWT令牌。
      * <p>
@@ -130,9 +293,23 @@ public class JwtUtilService {
      * @return 新的JWT令牌或原始令牌，取决于是否需要刷新。
      */
     public String refreshToken(String token, int minutes) {
-        Claims claims = parseToken(token);
-        if (claims != null && getMinutesUntilExpiration(claims) <= minutes) {
-            return createToken(claims.getSubject());
+        return refreshToken(parseToken(token), token, minutes);
+    }
+
+    /**
+     * 根据已解析的声明刷新JWT令牌，不再重复解析令牌。
+     * <p>
+     * 同一用户的并发刷新只签发一次（single-flight），短时间内的后续刷新复用同一个新令牌；
+     * 新令牌写入Redis在后台异步完成，且只替换本次刷新所基于的令牌。
+     *
+     * @param claims  当前令牌解析后的声明，可以为null。
+     * @param token   当前的JWT令牌。
+     * @param minutes 令牌剩余有效时间的最小分钟数，低于此值则刷新。
+     * @return 新的JWT令牌或原始令牌，取决于是否需要刷新。
+     */
+    public String refreshToken(Claims claims, String token, int minutes) {
+        if (claims != null && claims.getSubject() != null && getMinutesUntilExpiration(claims) <= minutes) {
+            return refreshedTokens.get(claims.getSubject(), username -> issueRefreshedToken(username, token));
         }
         return token;
     }
@@ -151,19 +328,31 @@ public class JwtUtilService {
 
     /**
      * 验证令牌（token）的有效性。
-     * 通过解析令牌获取用户名，并验证数据库中是否存在对应的用户。
+     * 通过解析令牌获取用户名，并验证是否存在对应的用户（经由用户信息缓存，稳定状态下不访问数据库）。
      *
      * @param token 待验证的令牌字符串。
      * @return 如果令牌有效（即对应一个存在的用户名），返回true；否则返回false。
      */
     public boolean validateToken(String token) {
-        // 从令牌中提取用户名
-        final String username = extractUsernameFromToken(token);
+        return validateToken(parseToken(token));
+    }
+
+    /**
+     * 根据已解析的声明验证令牌的有效性。
+     *
+     * @param claims 令牌解析后的声明，为null表示令牌无效。
+     * @return 如果令牌有效（即对应一个存在的用户名），返回true；否则返回false。
+     */
+    public boolean validateToken(Claims claims) {
+        // 从声明中提取用户名
+        final String username = claims != null ? claims.getSubject() : null;
         if (username != null) {
-            // 根据用户名查询数据库中的用户信息
-            User user=userMapper.selectOne(new LambdaQueryWrapper<User>().eq(User::getUsername, username));
-            // 如果查询结果不为空，则表示用户名存在，令牌有效
-            return user != null;
+            try {
+                // 根据用户名加载用户信息，能加载到则表示用户名存在，令牌有效
+                return userDetailsService.loadUserByUsername(username) != null;
+            } catch (UsernameNotFoundException e) {
+                return false;
+            }
         }
         // 如果用户名为空，直接返回无效
         return false;
@@ -177,7 +366,30 @@ public class JwtUtilService {
      * @return 如果解析成功，返回用户名；如果解析失败，返回null。
      */
     public String extractUsernameFromToken(String token) {
-        return parseToken(token).getSubject();
+        Claims claims = parseToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    /**
+     * 已校验令牌缓存的过期策略：条目在令牌的exp时刻过期，读取和更新不改变剩余时间。
+     */
+    private static class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 
 }
@@ -1,5 +1,6 @@
 package com.blog.web.config.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -61,26 +62,37 @@ public class MySecurityConfig {
                 .and()
                 // 配置请求授权
                 .authorizeHttpRequests()
+                // 流式响应和异步结果在异步分派中写出，原请求已经完成了授权
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 // 指定哪些请求路径允许匿名访问
                 .requestMatchers("/api/user/login",
                                 "/api/user/register",
                                 "/api/article/getallarticle",
+                                "/api/article/getallarticlebycursor",
                                 "/api/article/getarticle",
+                                "/api/article/search",
+                                "/api/article/suggest",
+                                "/api/article/mostviewed",
                                 "/api/category/getallcategory",
                                 "/api/category/getCategory",
                                 "/api/comment/getcomment",
+                                "/api/comment/getthread",
+                                "/api/comment/getreplies",
                                 "/api/tag/getalltag",
                                 "/api/tag/gettag").anonymous()
                 // 指定哪些请求路径需要ADMIN角色
                 .requestMatchers("/api/user/adduser",
                                 "/api/user/getalluser",
+                                "/api/user/getalluserbycursor",
                                 "/api/user/deleteuser/",
                                 "/api/user/addtag",
                                 "/api/tag/deletetag/**",
                                 "/api/tag/updatetag",
                                 "/api/media/deletemedia/**",
                                 "/api/media/getallmedia",
+                                "/api/media/getmediaarchive",
                                 "/api/comment/getallcomment/**",
+                                "/api/comment/getallcommentbycursor",
                                 "/api/comment/updatecomment/**",
                                 "/api/category/addcategory",
                                 "/api/category/deletecategory/**",
@@ -111,6 +123,8 @@ public class MySecurityConfig {
         config.addAllowedOriginPattern("*"); // 允许所有来源
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        // 允许前端读取刷新后的令牌
+        config.addExposedHeader(JwtAuthenticationFilter.REFRESH_TOKEN_HEADER);
         source.registerCorsConfiguration("/**", config);
         return new CorsFilter(source);
     }
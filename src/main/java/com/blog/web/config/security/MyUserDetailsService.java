@@ -24,9 +24,13 @@ public class MyUserDetailsService implements UserDetailsService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     /**
      * 根据用户名加载用户详细信息。
      * 此方法是Spring Security框架中UserDetailsService接口的实现方法之一，用于根据提供的用户名查找用户信息。
+     * 优先从本地缓存中获取，缓存未命中时查询数据库。
      * 如果找不到匹配的用户，将抛出UsernameNotFoundException异常。
      *
      * @param username 用户名，用于查找用户信息。
@@ -35,12 +39,26 @@ public class MyUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // 根据用户名查询用户信息
-        User user = userMapper.selectOne(new LambdaQueryWrapper<User>().eq(User::getUsername, username));
+        UserDetails userDetails = principalCache.get(username, this::loadFromDatabase);
         // 如果用户不存在，则抛出异常
-        if (user == null){
+        if (userDetails == null) {
             throw new UsernameNotFoundException("用户不存在");
         }
+        return userDetails;
+    }
+
+    /**
+     * 从数据库中查询用户并构建UserDetails对象。
+     *
+     * @param username 用户名。
+     * @return UserDetails对象；如果用户不存在则返回null。
+     */
+    private UserDetails loadFromDatabase(String username) {
+        // 根据用户名查询用户信息
+        User user = userMapper.selectOne(new LambdaQueryWrapper<User>().eq(User::getUsername, username));
+        if (user == null) {
+            return null;
+        }
 
         // 根据用户角色设置权限列表
         List<GrantedAuthority> authorities;
@@ -0,0 +1,84 @@
+package com.blog.web.config.security;
+
+import com.blog.web.config.cache.CacheInvalidationBus;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 已认证用户信息的本地缓存（用户名 -> UserDetails）。
+ * <p>
+ * JWT过滤器每次请求都需要加载用户信息，缓存后稳定状态下认证不再访问数据库。
+ * 缓存有容量上限和写入后过期时间，用户被修改或删除时需显式调用 {@link #invalidate(String)}，
+ * 失效消息通过 {@link CacheInvalidationBus} 广播到所有节点。
+ */
+@Component
+public class PrincipalCache {
+
+    private static final String TOPIC = "principal";
+
+    @Value("${cache.principal.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${cache.principal.expire-after-write-seconds:600}")
+    private long expireAfterWriteSeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    private Cache<String, UserDetails> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "security.principal");
+        invalidationBus.subscribe(TOPIC, cache::invalidate);
+    }
+
+    /**
+     * 获取用户信息，缓存未命中时通过loader加载。
+     * <p>
+     * 返回的是缓存对象的副本，避免调用方（如擦除凭证）修改缓存中的数据。
+     *
+     * @param username 用户名。
+     * @param loader   缓存未命中时的加载函数，用户不存在时返回null（不会被缓存）。
+     * @return 用户信息副本；如果用户不存在则返回null。
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        UserDetails cached = cache.get(username, loader);
+        if (cached == null) {
+            return null;
+        }
+        return User.withUserDetails(cached).build();
+    }
+
+    /**
+     * 使指定用户名的缓存失效，并通知其他节点。
+     *
+     * @param username 用户名，为null时忽略。
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+            invalidationBus.publish(TOPIC, username);
+        }
+    }
+
+}
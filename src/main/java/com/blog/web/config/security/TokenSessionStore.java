@@ -0,0 +1,276 @@
+package com.blog.web.config.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的登录会话存储，令牌保存在 "token:" + 用户名 键下。
+ * <p>
+ * 签发、检查、注销均为单次往返；批量签发使用管道（pipeline）一次发送，批量注销使用一条多键DEL命令完成。
+ * JWT过滤器在已校验令牌缓存未命中时通过 {@link #isActive(String, String)} 检查会话。
+ * <p>
+ * 刷新令牌的异步写入是有条件的：只有Redis中仍是刷新前的令牌时才替换，
+ * 因此晚到的写入不会恢复已注销的会话，也不会覆盖之后新登录签发的令牌。
+ */
+@Slf4j
+@Component
+public class TokenSessionStore {
+
+    /**
+     * 会话有效期（分钟），与令牌有效期一致。
+     */
+    public static final long SESSION_MINUTES = 30;
+
+    private static final String KEY_PREFIX = "token:";
+
+    /**
+     * 单次管道写入的最大条数。
+     */
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * 比较并替换：KEYS[1]的值等于ARGV[1]（刷新前的令牌）时写入ARGV[2]（新令牌）并重置有效期。
+     */
+    private static final DefaultRedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', " + TimeUnit.MINUTES.toSeconds(SESSION_MINUTES) + ") "
+                    + "return 1 end return 0", Long.class);
+
+    private static final byte[] REPLACE_SCRIPT_BYTES = REPLACE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 等待异步写入的刷新令牌，由后台线程合并后批量写入。
+     */
+    private final BlockingQueue<PendingReplace> pending = new LinkedBlockingQueue<>(4096);
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        writer = new Thread(this::writeLoop, "token-session-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        // 关闭前把剩余的会话同步写入
+        flushPending();
+    }
+
+    /**
+     * 同步签发会话，一条SET EX命令完成。
+     *
+     * @param username 用户名。
+     * @param token    令牌。
+     */
+    public void issue(String username, String token) {
+        redisTemplate.opsForValue().set(KEY_PREFIX + username, token, SESSION_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 异步替换刷新前的令牌，由后台线程合并为管道批量写入；队列已满时退化为同步写入。
+     * 只有Redis中仍是刷新前的令牌时才写入，会话已注销或已被新的登录替换时不做修改。
+     *
+     * @param username 用户名。
+     * @param expected 刷新前的令牌。
+     * @param token    新令牌。
+     * @return 写入完成后得到结果：true表示已替换，false表示会话已变化、写入被丢弃或失败。
+     */
+    public CompletableFuture<Boolean> replaceAsync(String username, String expected, String token) {
+        PendingReplace replace = new PendingReplace(username, expected, token, new CompletableFuture<>());
+        if (!pending.offer(replace)) {
+            write(List.of(replace));
+        }
+        return replace.result();
+    }
+
+    /**
+     * 使用管道批量签发会话，所有SET命令在一次往返中发送。
+     *
+     * @param sessions 会话列表，每个元素为 {用户名, 令牌}。
+     */
+    @SuppressWarnings("unchecked")
+    public void issueAll(List<String[]> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        Expiration expiration = Expiration.from(SESSION_MINUTES, TimeUnit.MINUTES);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String[] session : sessions) {
+                connection.stringCommands().set(keySerializer.serialize(KEY_PREFIX + session[0]),
+                        valueSerializer.serialize(session[1]), expiration, RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 检查会话是否有效，即Redis中保存的令牌与给定令牌一致，一条GET命令完成。
+     *
+     * @param username 用户名。
+     * @param token    令牌。
+     * @return 如果会话存在且令牌一致，返回true；否则返回false。
+     */
+    public boolean isActive(String username, String token) {
+        Object stored = redisTemplate.opsForValue().get(KEY_PREFIX + username);
+        return token != null && token.equals(stored);
+    }
+
+    /**
+     * 注销会话，一条DEL命令完成，替代原先的hasKey + delete两次往返。
+     * 队列中该用户尚未写入的刷新令牌一并丢弃。
+     *
+     * @param username 用户名。
+     * @return 如果会话存在并已删除，返回true；如果会话本不存在，返回false。
+     */
+    public boolean revoke(String username) {
+        if (username == null) {
+            return false;
+        }
+        dropPending(List.of(username));
+        return Boolean.TRUE.equals(redisTemplate.delete(KEY_PREFIX + username));
+    }
+
+    /**
+     * 批量注销会话，一条多键DEL命令完成，用于删除用户、修改密码等需要使多个会话同时失效的场景。
+     * 队列中这些用户尚未写入的刷新令牌一并丢弃。
+     *
+     * @param usernames 用户名集合，其中的null被忽略。
+     * @return 实际删除的会话数。
+     */
+    public long revokeAll(Collection<String> usernames) {
+        if (usernames == null || usernames.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            if (username != null) {
+                keys.add(KEY_PREFIX + username);
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        dropPending(usernames);
+        Long deleted = redisTemplate.delete(keys);
+        return deleted != null ? deleted : 0;
+    }
+
+    /**
+     * 丢弃队列中给定用户尚未写入的刷新令牌。已被后台线程取出的写入由比较并替换保证不会恢复会话。
+     */
+    private void dropPending(Collection<String> usernames) {
+        pending.removeIf(replace -> {
+            if (usernames.contains(replace.username())) {
+                replace.result().complete(false);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 后台写入循环：等待第一条刷新令牌，再把队列中已有的一起通过管道写入。
+     */
+    private void writeLoop() {
+        while (running) {
+            try {
+                PendingReplace first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingReplace> batch = new ArrayList<>();
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 将队列中剩余的刷新令牌全部写入。
+     */
+    private void flushPending() {
+        List<PendingReplace> batch = new ArrayList<>();
+        while (pending.drainTo(batch, MAX_BATCH) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 使用管道批量执行比较并替换脚本，所有命令在一次往返中发送，并通知每条写入的结果。
+     */
+    @SuppressWarnings("unchecked")
+    private void write(List<PendingReplace> batch) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (PendingReplace replace : batch) {
+                    connection.scriptingCommands().eval(REPLACE_SCRIPT_BYTES, ReturnType.INTEGER, 1,
+                            keySerializer.serialize(KEY_PREFIX + replace.username()),
+                            valueSerializer.serialize(replace.expected()), valueSerializer.serialize(replace.token()));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("批量写入会话失败, 数量={}", batch.size(), e);
+            for (PendingReplace replace : batch) {
+                replace.result().complete(false);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Object result = i < results.size() ? results.get(i) : null;
+            batch.get(i).result().complete(result instanceof Long replaced && replaced == 1L);
+        }
+    }
+
+    /**
+     * 等待写入的刷新令牌。
+     *
+     * @param username 用户名。
+     * @param expected 刷新前的令牌。
+     * @param token    新令牌。
+     * @param result   写入结果。
+     */
+    private record PendingReplace(String username, String expected, String token, CompletableFuture<Boolean> result) {
+    }
+
+}
@@ -2,15 +2,25 @@ package com.blog.web.controller;
 
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.blog.web.config.KeysetCursor;
+import com.blog.web.config.PageCountCache;
 import com.blog.web.config.Result;
+import com.blog.web.config.search.SuggestionIndex;
+import com.blog.web.dto.ArticleSummary;
+import com.blog.web.dto.ArticleViewRank;
+import com.blog.web.dto.CursorPage;
+import com.blog.web.dto.Suggestion;
 import com.blog.web.entity.Article;
 import com.blog.web.mapper.ArticleMapper;
 import com.blog.web.service.IArticleService;
+import com.blog.web.service.impl.ArticleViewCounter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,10 +34,16 @@ import java.util.Map;
 public class ArticleController {
 
     @Autowired
-    private ArticleMapper articleMapper;
+    private IArticleService iArticleService;
 
     @Autowired
-    private IArticleService iArticleService;
+    private PageCountCache pageCountCache;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private ArticleViewCounter articleViewCounter;
 
     /**
      * 保存文章信息
@@ -43,11 +59,11 @@ public class ArticleController {
         article.setCreatedAt(LocalDateTime.now());
         article.setUpdatedAt(LocalDateTime.now());
 
-        // 将处理后的文章插入到数据库中，并返回插入操作影响的行数
-        int rows = articleMapper.insert(article);
+        // 将处理后的文章插入到数据库中，同时清除该文章ID可能存在的缓存
+        boolean saved = iArticleService.save(article);
 
-        // 根据插入操作的影响行数，判断插入操作是否成功，并返回相应的结果
-        if (rows > 0) {
+        // 根据插入操作的结果，判断插入操作是否成功，并返回相应的结果
+        if (saved) {
             return Result.success("发布成功！");
         } else {
             return Result.error("发布失败！");
@@ -64,10 +80,10 @@ public class ArticleController {
      */
     @DeleteMapping("/deletearticle/{articleId}")
     public Result<Article> removeArticle(@PathVariable("articleId") Integer articleId) {
-        // 调用articleMapper的DeleteById方法，根据文章ID删除。
-        int rows = articleMapper.deleteById(articleId);
-        // 检查删除操作影响的行数，如果大于0，则表示删除成功。
-        if (rows > 0) {
+        // 调用文章服务的removeById方法，根据文章ID删除，并清除文章缓存。
+        boolean removed = iArticleService.removeById(articleId);
+        // 检查删除操作是否成功。
+        if (removed) {
             return Result.success("删除成功！");
         } else {
             return Result.error("删除失败!");
@@ -76,31 +92,114 @@ public class ArticleController {
 
     /**
      * 根据页码和每页大小获取所有文章列表。
+     * 列表只返回文章摘要（不含正文），完整正文通过 getarticle 获取。
      *
      * @param pageNum 当前页码
      * @param pageSize 每页显示的文章数量
+     * @param searchCount 是否返回总数，默认返回；无限滚动的客户端可传false跳过。
      * @return 包含文章总数和文章列表的结果对象
      */
     @GetMapping("/getallarticle")
-    public Result<Map<String, Object>> getAllArticle(@RequestParam(value = "pageNum") Integer pageNum, @RequestParam(value = "pageSize") Integer pageSize) {
+    public Result<Map<String, Object>> getAllArticle(@RequestParam(value = "pageNum") Integer pageNum, @RequestParam(value = "pageSize") Integer pageSize,
+                                                     @RequestParam(value = "searchCount", required = false, defaultValue = "true") Boolean searchCount) {
         // 创建分页对象，用于后续的分页查询
-        Page<Article> page = new Page<>(pageNum, pageSize);
-        // 调用文章服务的分页查询方法
-        iArticleService.page(page);
+        Page<ArticleSummary> page = new Page<>(pageNum, pageSize, false);
+        // 调用文章服务的摘要分页查询方法
+        iArticleService.pageSummary(page);
         // 创建一个Map用于存放查询结果的总条数和文章列表
         Map<String, Object> map = new HashMap<>();
-        // 将查询结果的总条数放入Map中
-        map.put("total", page.getTotal());
+        // 总数读取缓存，不再每次执行COUNT(*)；无限滚动的客户端可以不查询总数
+        if (searchCount) {
+            map.put("total", pageCountCache.count(ArticleMapper.class, iArticleService::count));
+        }
         // 将查询到的文章列表放入Map中
         map.put("rows", page.getRecords());
         // 返回包含文章总数和文章列表的结果对象
         return Result.success(map);
     }
 
+    /**
+     * 按创建时间倒序游标分页获取文章列表。
+     * <p>
+     * 与按页码分页不同，游标分页通过上一页最后一条记录定位，不执行COUNT(*)，
+     * 任意深度的翻页代价都与第一页相同。
+     *
+     * @param cursor   上一页返回的游标，为空表示第一页。
+     * @param pageSize 每页显示的文章数量。
+     * @return 包含文章列表、下一页游标和是否还有更多数据的结果对象。
+     */
+    @GetMapping("/getallarticlebycursor")
+    public Result<CursorPage<ArticleSummary>> getAllArticleByCursor(@RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        try {
+            return Result.success(iArticleService.pageByCursor(cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            // 游标格式无效
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 按关键词全文检索文章标题和正文，结果按相关度排序。
+     * <p>
+     * 查询本地全文索引（中文分词），不对数据库做模糊匹配；返回的是文章摘要，完整正文通过 getarticle 获取。
+     *
+     * @param keyword  关键词。
+     * @param pageNum  当前页码，默认第1页。
+     * @param pageSize 每页显示的文章数量，默认10条。
+     * @return 包含命中总数和文章列表的结果对象。
+     */
+    @GetMapping("/search")
+    public Result<Map<String, Object>> search(@RequestParam(value = "keyword") String keyword,
+                                              @RequestParam(value = "pageNum", required = false, defaultValue = "1") Integer pageNum,
+                                              @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        Page<ArticleSummary> page = new Page<>(pageNum, KeysetCursor.clampPageSize(pageSize));
+        iArticleService.search(keyword, page);
+        Map<String, Object> map = new HashMap<>();
+        map.put("total", page.getTotal());
+        map.put("rows", page.getRecords());
+        return Result.success(map);
+    }
+
+    /**
+     * 输入提示：按前缀匹配文章标题、标签名和分类名。
+     * <p>
+     * 数据全部在内存中，每次按键的请求都不访问数据库。匹配不区分大小写和全角半角。
+     *
+     * @param prefix 用户已输入的文本。
+     * @param type   只查询指定类型：article、tag 或 category，为空时查询全部。
+     * @param limit  每种类型最多返回的条数，默认5条，最多20条。
+     * @return 提示项列表，标签、分类在前，文章标题在后。
+     */
+    @GetMapping("/suggest")
+    public Result<List<Suggestion>> suggest(@RequestParam(value = "prefix") String prefix,
+                                            @RequestParam(value = "type", required = false) String type,
+                                            @RequestParam(value = "limit", required = false, defaultValue = "5") Integer limit) {
+        return Result.success(suggestionIndex.suggest(prefix, type, Math.min(limit, 20)));
+    }
+
+    /**
+     * 浏览量排行，从Redis有序集合读取，标题取自内存中的输入提示数据，不访问数据库。
+     *
+     * @param limit 返回的文章数量，默认10篇，最多100篇。
+     * @return 按浏览量倒序的文章列表。
+     */
+    @GetMapping("/mostviewed")
+    public Result<List<ArticleViewRank>> mostViewed(@RequestParam(value = "limit", required = false, defaultValue = "10") Integer limit) {
+        List<ArticleViewRank> ranks = new ArrayList<>();
+        try {
+            articleViewCounter.top(Math.max(1, Math.min(limit, 100))).forEach((articleId, viewCount) ->
+                    ranks.add(new ArticleViewRank(articleId, suggestionIndex.text(SuggestionIndex.ARTICLE, articleId), viewCount)));
+        } catch (Exception e) {
+            return Result.error("查询失败！");
+        }
+        return Result.success(ranks);
+    }
+
     /**
      * 根据文章ID获取文章详情。
      * <p>
-     * 本方法通过GET请求方式，从数据库中查询指定文章ID的文章详情，并将查询结果封装为Result对象返回。
+     * 本方法通过GET请求方式，查询指定文章ID的文章详情（优先读取缓存），并将查询结果封装为Result对象返回。
+     * 每次查询记录一次浏览（只在内存中累加），返回的浏览量读取Redis中的汇总值。
      * 如果文章ID未提供，则不进行查询操作。该方法旨在为前端提供获取文章详细信息的接口。
      *
      * @param articleId 文章的唯一标识ID，可选参数。
@@ -109,10 +208,12 @@ public class ArticleController {
      */
     @GetMapping("/getarticle")
     public Result<Article> getArticle(@RequestParam(value = "articleId", required = false) Integer articleId) {
-        // 根据文章ID查询文章详情
-        Article article = articleMapper.selectById(articleId);
+        // 根据文章ID查询文章详情，缓存未命中时才查询数据库
+        Article article = iArticleService.getArticleById(articleId);
         // 返回查询结果，如果未查询到文章，则Result对象的数据部分为null
         if (article != null) {
+            articleViewCounter.record(articleId);
+            article.setViewCount(articleViewCounter.count(articleId));
             return Result.success(article);
         } else {
             return Result.error("查询失败！");
@@ -149,11 +250,11 @@ public class ArticleController {
             article.setBackgroundPath(article.getBackgroundPath());
         }
 
-        // 更新数据库中的文章信息
-        int rows = articleMapper.updateById(article);
+        // 更新数据库中的文章信息，并清除文章缓存
+        boolean updated = iArticleService.updateById(article);
 
-        // 根据更新影响的行数判断更新操作是否成功
-        if (rows > 0) {
+        // 根据更新结果判断更新操作是否成功
+        if (updated) {
             return Result.success("更新成功！");
         } else {
             return Result.error("更新失败！");
@@ -3,6 +3,7 @@ package com.blog.web.controller;
 import com.blog.web.config.Result;
 import com.blog.web.entity.Category;
 import com.blog.web.mapper.CategoryMapper;
+import com.blog.web.service.ICategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,6 +23,9 @@ public class CategoryController {
     @Autowired
     private CategoryMapper categoryMapper;
 
+    @Autowired
+    private ICategoryService iCategoryService;
+
     /**
      * 通过POST请求添加新的分类。
      *
@@ -33,12 +37,11 @@ public class CategoryController {
         category.setCreatedAt(LocalDateTime.now());
         category.setUpdatedAt(LocalDateTime.now());
 
-        // 调用Mapper接口插入分类信息到数据库
-        // 调用服务层方法，保存分类信息
-        int rows = categoryMapper.insert(category);
+        // 调用服务层方法，保存分类信息，并使分类缓存失效
+        boolean saved = iCategoryService.save(category);
 
-        // 根据插入操作影响的行数判断添加操作是否成功
-        if (rows > 0) {
+        // 根据插入操作的结果判断添加操作是否成功
+        if (saved) {
             return Result.success("添加成功");
         } else {
             return Result.error("添加失败");
@@ -54,10 +57,10 @@ public class CategoryController {
      */
     @DeleteMapping("/deletecategory/{categoryId}")
     public Result<Category> removeCategory(@PathVariable("categoryId") Integer categoryId) {
-        // 调用categoryMapper的.deleteById方法，尝试删除指定ID的分类
-        int rows = categoryMapper.deleteById(categoryId);
-        // 判断删除操作影响的行数，如果大于0，则表示删除成功
-        if (rows > 0) {
+        // 调用服务层的removeById方法，尝试删除指定ID的分类，并使分类缓存失效
+        boolean removed = iCategoryService.removeById(categoryId);
+        // 判断删除操作是否成功
+        if (removed) {
             return Result.success("删除成功");
         } else {
             // 如果影响的行数为0，说明删除操作失败
@@ -76,10 +79,10 @@ public class CategoryController {
     public Result<Category> updateCategory(@RequestBody Category category) {
         category.setUpdatedAt(LocalDateTime.now());
 
-        int rows = categoryMapper.updateById(category);
+        boolean updated = iCategoryService.updateById(category);
 
         // 根据update方法的返回值判断更新操作是否成功
-        if (rows > 0) {
+        if (updated) {
             // 更新成功，返回成功结果
             return Result.success("更新成功");
         } else {
@@ -115,8 +118,8 @@ public class CategoryController {
      */
     @GetMapping("/getallcategory")
     public Result<List<Category>> getAllCategory() {
-        // 调用categoryMapper的selectList方法，不传入任何条件，获取所有分类信息
-        List<Category> categoryList = categoryMapper.selectList(null);
+        // 获取所有分类信息，优先读取本地快照，其次Redis，最后查询数据库
+        List<Category> categoryList = iCategoryService.listAllCached();
         // 将获取到的分类列表封装在Result对象中，以成功状态返回
         return Result.success(categoryList);
     }
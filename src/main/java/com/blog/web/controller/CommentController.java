@@ -2,20 +2,25 @@ package com.blog.web.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.blog.web.config.CommentTreeBuilder;
+import com.blog.web.config.PageCountCache;
 import com.blog.web.config.Result;
+import com.blog.web.config.cache.CommentTreeCache;
+import com.blog.web.dto.CommentNode;
+import com.blog.web.dto.CommentThread;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.Comment;
 import com.blog.web.mapper.CommentMapper;
 import com.blog.web.service.ICommentService;
+import com.blog.web.service.impl.CommentWriteBehind;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * 评论表 前端控制器
@@ -33,9 +38,24 @@ public class CommentController {
     @Autowired
     private ICommentService iCommentService;
 
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    @Autowired
+    private CommentTreeBuilder commentTreeBuilder;
+
+    @Autowired
+    private CommentTreeCache commentTreeCache;
+
+    @Autowired
+    private CommentWriteBehind commentWriteBehind;
+
     /**
      * 通过POST请求添加评论。
      *
+     * 开启延迟批量写入时，评论进入队列后立即返回，返回的评论ID为临时ID（负数），
+     * 写入数据库后才会出现在评论列表中。
+     *
      * @param comment 待添加的评论对象，包含评论内容等信息。
      * @return 如果评论添加成功，返回成功的Result对象，包含评论成功的消息；
      * 如果添加失败，返回错误的Result对象，包含评论失败的消息。
@@ -45,10 +65,25 @@ public class CommentController {
         comment.setCreatedAt(LocalDateTime.now());
         String clientIp = getClientIp(request);
         comment.setCommentIp(clientIp);
-        // 将评论对象插入数据库，返回影响的行数
-        int rows = commentMapper.insert(comment);
+        // 临时ID的评论尚未写入数据库，不能被回复
+        if (comment.getParentId() != null && comment.getParentId() < 0) {
+            return Result.error("评论尚未保存，请稍后再回复");
+        }
+        if (commentWriteBehind.isEnabled()) {
+            try {
+                if (!commentWriteBehind.submit(comment)) {
+                    return Result.error("评论失败");
+                }
+            } catch (IllegalArgumentException e) {
+                // 评论不满足数据库的约束，不进入队列
+                return Result.error(e.getMessage());
+            }
+            return Result.success("评论成功", comment);
+        }
+        // 将评论对象插入数据库，同时插入已缓存的评论树
+        boolean saved = iCommentService.save(comment);
         // 判断插入操作是否成功，成功则返回成功结果，失败则返回错误结果
-        if (rows > 0) {
+        if (saved) {
             return Result.success("评论成功");
         } else {
             return Result.error("评论失败");
@@ -63,10 +98,10 @@ public class CommentController {
      */
     @DeleteMapping("/deletecomment/{commentId}")
     public Result<Comment> removeComment(@PathVariable("commentId") Integer commentId) {
-        // 根据评论ID删除评论，返回影响的行数
-        int rows = commentMapper.deleteById(commentId);
-        // 判断删除操作的影响行数，如果大于0，则删除成功
-        if (rows > 0) {
+        // 根据评论ID删除评论，同时丢弃该文章已缓存的评论树
+        boolean removed = iCommentService.removeById(commentId);
+        // 判断删除操作是否成功
+        if (removed) {
             return Result.success("删除成功");
         } else {
             return Result.error("删除失败");
@@ -77,27 +112,26 @@ public class CommentController {
      * 根据文章ID获取评论列表。
      * <p>
      * 本方法通过查询数据库中与指定文章ID相关的评论，然后构建一个评论树状结构返回。
-     * 如果没有指定文章ID，则返回所有评论。评论数据以List<Map<String, Object>>的形式返回，
-     * 其中Map代表每个评论及其相关信息。
+     * 如果没有指定文章ID，则返回所有评论。评论数据以List<CommentNode>的形式返回，
+     * 每个节点包含评论本身和它的子评论。
      *
      * @param articleId 文章ID，可选参数。如果指定了文章ID，则只返回该文章的评论。
      * @return 返回一个包含评论树的Result对象。如果未找到任何评论，则Result对象的data字段为空。
      */
     @GetMapping("/getcomment")
-    public Result<List<Map<String, Object>>> getComment(
+    public Result<List<CommentNode>> getComment(
             @RequestParam(value = "articleId", required = false) Integer articleId) {
-        LambdaQueryWrapper<Comment> wrapper = new LambdaQueryWrapper<>();
-        // 如果提供了文章ID，则根据文章ID过滤评论
+        // 指定了文章ID时，从缓存中读取该文章已构建好的评论树
         if (articleId != null) {
-            wrapper.eq(Comment::getArticleId, articleId);
+            return Result.success(commentTreeCache.get(articleId));
         }
-        // 根据查询条件获取评论列表
-        List<Comment> commentList = commentMapper.selectList(wrapper);
+        // 未指定文章ID时查询所有评论
+        List<Comment> commentList = commentMapper.selectList(new LambdaQueryWrapper<>());
 
         // 构建评论树状结构
         // 判断查询结果是否存在
         if (commentList != null) {
-            List<Map<String, Object>> commentTree = buildCommentTree(commentList);
+            List<CommentNode> commentTree = commentTreeBuilder.build(commentList);
             // 返回带有评论树的Result对象
             return Result.success(commentTree);
         } else {
@@ -107,6 +141,49 @@ public class CommentController {
         }
     }
 
+    /**
+     * 分页获取文章的评论线程，用于评论较多的文章。
+     * <p>
+     * 根评论按创建时间倒序游标分页，每条根评论附带直接回复数和前几条回复，
+     * 剩余回复通过 getreplies 展开。响应大小和查询次数与评论总数无关。
+     *
+     * @param articleId 文章ID。
+     * @param cursor    上一页返回的游标，为空表示第一页。
+     * @param pageSize  每页根评论数量。
+     * @return 包含评论线程、下一页游标和是否还有更多数据的结果对象。
+     */
+    @GetMapping("/getthread")
+    public Result<CursorPage<CommentThread>> getThread(@RequestParam(value = "articleId") Integer articleId,
+                                                       @RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        try {
+            return Result.success(iCommentService.pageThreads(articleId, cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            // 游标格式无效
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 展开评论的回复，按创建时间正序游标分页。
+     *
+     * @param parentId 父评论ID。
+     * @param cursor   线程中返回的replyCursor或上一页返回的游标，为空表示从第一条回复开始。
+     * @param pageSize 每页回复数量。
+     * @return 包含回复列表、下一页游标和是否还有更多数据的结果对象。
+     */
+    @GetMapping("/getreplies")
+    public Result<CursorPage<CommentThread>> getReplies(@RequestParam(value = "parentId") Integer parentId,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        try {
+            return Result.success(iCommentService.pageReplies(parentId, cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            // 游标格式无效
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 获取所有评论信息的接口。
      *
@@ -115,24 +192,45 @@ public class CommentController {
      *
      * @param pageNum 当前页码，用于分页查询
      * @param pageSize 每页的评论数量，用于分页查询
+     * @param searchCount 是否返回总数，默认返回；无限滚动的客户端可传false跳过。
      * @return 包含评论总数和评论列表的结果对象
      */
     @GetMapping("/getallcomment")
-    public Result<Map<String, Object>> getAllComment(@RequestParam(value = "pageNum") Integer pageNum, @RequestParam(value = "pageSize") Integer pageSize) {
+    public Result<Map<String, Object>> getAllComment(@RequestParam(value = "pageNum") Integer pageNum, @RequestParam(value = "pageSize") Integer pageSize,
+                                                     @RequestParam(value = "searchCount", required = false, defaultValue = "true") Boolean searchCount) {
         // 创建分页对象，用于后续的分页查询
-        Page<Comment> page = new Page<>(pageNum, pageSize);
+        Page<Comment> page = new Page<>(pageNum, pageSize, false);
         // 调用评论服务的分页查询方法
         iCommentService.page(page);
         // 创建一个Map对象，用于存放查询结果
         Map<String, Object> map = new HashMap<>();
-        // 将评论总数放入Map中
-        map.put("total", page.getTotal());
+        // 总数读取缓存，不再每次执行COUNT(*)；无限滚动的客户端可以不查询总数
+        if (searchCount) {
+            map.put("total", pageCountCache.count(CommentMapper.class, iCommentService::count));
+        }
         // 将评论列表放入Map中
         map.put("rows", page.getRecords());
         // 返回包含查询结果的success结果对象
         return Result.success(map);
     }
 
+    /**
+     * 按创建时间倒序游标分页获取评论列表，供后台管理的无限滚动使用。
+     *
+     * @param cursor   上一页返回的游标，为空表示第一页。
+     * @param pageSize 每页显示的评论数量。
+     * @return 包含评论列表、下一页游标和是否还有更多数据的结果对象。
+     */
+    @GetMapping("/getallcommentbycursor")
+    public Result<CursorPage<Comment>> getAllCommentByCursor(@RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        try {
+            return Result.success(iCommentService.pageByCursor(cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            // 游标格式无效
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 通过PUT请求更新评论信息。
      *
@@ -141,67 +239,17 @@ public class CommentController {
      */
     @PutMapping("/updatecomment")
     public Result<Comment> updateComment(@RequestBody Comment comment) {
-        // 调用commentMapper的updateById方法更新评论
-        int rows = commentMapper.updateById(comment);
+        // 调用评论服务的updateById方法更新评论，同时更新已缓存的评论树
+        boolean updated = iCommentService.updateById(comment);
 
         // 判断更新操作是否成功，如果成功，则返回更新成功的结果，否则返回更新失败的错误信息
-        if (rows > 0) {
+        if (updated) {
             return Result.success("更新成功");
         } else {
             return Result.error("更新失败");
         }
     }
 
-    /**
-     * 构建评论树。
-     * <p>
-     * 通过将评论分组到它们的父评论中，构建一个评论树结构。
-     * 这个方法专注于处理评论的数据结构转换，不涉及具体的业务逻辑。
-     *
-     * @param comments 原始的评论列表，这些评论可能是树结构中的任意节点。
-     * @return 返回一个列表，包含所有根评论的树结构表示。
-     */
-    // 构建评论树方法
-    private List<Map<String, Object>> buildCommentTree(List<Comment> comments) {
-        // 根据父评论ID将评论分组，以便后续构建评论树。
-        // 使用一个map来存储每个parentId对应的子评论列表
-        Map<Integer, List<Comment>> commentMap = comments.stream().collect(Collectors.groupingBy(Comment::getParentId));
-
-        // 获取所有父评论ID为0的评论（即根评论），并将其转换为树结构表示。
-        // 返回构建好的根评论列表。
-        return commentMap.getOrDefault(0, new ArrayList<>())
-                .stream()
-                .map(comment -> convertToMap(comment, commentMap))
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * 将评论对象及其子评论转换为Map结构，便于后续处理或传输。
-     *
-     * @param comment    当前评论对象，包含评论内容和评论ID。
-     * @param commentMap 一个映射，其中键是评论ID，值是与该ID相关的评论列表。这个映射用于查找当前评论的子评论。
-     * @return 返回一个Map，包含当前评论和它的子评论（如果存在）。
-     */
-    private Map<String, Object> convertToMap(Comment comment, Map<Integer, List<Comment>> commentMap) {
-        // 初始化一个Map来存储当前评论和它的子评论
-        Map<String, Object> map = new HashMap<>();
-        // 将当前评论对象放入map中
-        map.put("comment", comment);
-
-        // 通过评论ID从commentMap中获取当前评论的子评论列表
-        List<Comment> children = commentMap.get(comment.getCommentId());
-        // 如果子评论存在且不为空，则将它们转换为Map结构并添加到当前Map中
-        if (children != null && !children.isEmpty()) {
-            // 使用stream将子评论列表转换为Map列表
-            List<Map<String, Object>> childrenMaps = children.stream()
-                    .map(child -> convertToMap(child, commentMap)) // 对每个子评论递归调用本方法
-                    .collect(Collectors.toList());
-            // 将子评论的Map列表放入当前Map中
-            map.put("children", childrenMaps);
-        }
-        return map;
-    }
-
     /**
      * 获取客户端IP地址的方法。
      *
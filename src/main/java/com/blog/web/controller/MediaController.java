@@ -1,23 +1,40 @@
 package com.blog.web.controller;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.blog.web.config.KeysetCursor;
+import com.blog.web.config.PageCountCache;
 import com.blog.web.config.Result;
+import com.blog.web.config.cache.MediaBytesCache;
+import com.blog.web.dto.MediaManifestItem;
 import com.blog.web.entity.Media;
 import com.blog.web.mapper.MediaMapper;
+import com.blog.web.service.IMediaService;
+import com.blog.web.service.impl.MediaStorage;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 媒体文件表 前端控制器
@@ -25,62 +42,58 @@ import java.util.List;
  * @author 苍晖
  * @since 2024-07-01
  */
+@Slf4j
 @RestController
 @RequestMapping("/api/media")
 public class MediaController {
 
-    @Value("${spring.servlet.multipart.location}")
-    private String uploadPath;
+    /**
+     * 媒体文件响应的浏览器缓存时间（秒），过期后通过ETag重新验证。
+     */
+    @Value("${media.cache-max-age-seconds:3600}")
+    private long cacheMaxAgeSeconds;
 
     @Autowired
     private MediaMapper mediaMapper;
 
+    @Autowired
+    private IMediaService iMediaService;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaBytesCache mediaBytesCache;
+
     /**
      * 通过POST请求添加媒体文件。
+     * <p>
+     * 文件在媒体IO线程池中从上传流直接写入上传目录，不在内存中保留完整内容，
+     * Web线程在写入期间被释放。
      *
      * @param file      上传的媒体文件。
      * @param mediaName 媒体文件的名称。
      * @return 添加结果，包括成功与否和添加的媒体信息。
      */
     @PostMapping("/addmedia")
-    public Result<Media> addMedia(@RequestParam("file") MultipartFile file, @RequestParam("mediaName") String mediaName) {
+    public CompletableFuture<Result<Media>> addMedia(@RequestParam("file") MultipartFile file, @RequestParam("mediaName") String mediaName) {
         try {
-            // 读取上传文件的内容字节。
-            // 获取文件的字节数组
-            byte[] bytes = file.getBytes();
-
-            // 构建文件在服务器上的存储路径。
-            // 构建文件路径
-            Path path = Paths.get(uploadPath + File.separator + file.getOriginalFilename());
-
-            // 将文件内容写入到服务器的指定路径。
-            // 将文件保存到指定路径
-            Files.write(path, bytes);
-
-            // 创建Media对象，用于存储媒体信息。
-            // 构建媒体对象并设置属性
-            Media media = new Media();
-            // 设置媒体文件的名称。
-            media.setMediaName(mediaName);
-            // 设置媒体文件的存储路径。
-            media.setMediaPath(path.toString());
-
-            // 调用MediaMapper的insert方法，将媒体信息插入数据库。
-            // 调用MediaMapper的insert方法插入媒体信息
-            int rows = mediaMapper.insert(media);
-
-            // 根据插入操作的影响行数判断添加是否成功。
-            // 判断插入操作影响的行数，如果大于0则表示插入成功
-            if (rows > 0) {
-                // 添加成功，返回成功结果和添加的媒体信息。
-                return Result.success("path:+path");
-            } else {
-                // 添加失败，返回错误结果。
-                return Result.error("添加失败");
-            }
-        } catch (IOException e) {
-            // 文件上传过程中发生IO异常，返回错误结果。
-            return Result.error("文件上传失败");
+            return iMediaService.upload(file, mediaName)
+                    .thenApply(media -> Result.success("上传成功", media))
+                    .exceptionally(e -> {
+                        log.warn("文件上传失败, filename={}", file.getOriginalFilename(), e);
+                        // 文件名无效等参数错误
+                        if (e.getCause() instanceof IllegalArgumentException) {
+                            return Result.error(e.getCause().getMessage());
+                        }
+                        return Result.error("文件上传失败");
+                    });
+        } catch (RejectedExecutionException e) {
+            // 线程池和队列已满
+            return CompletableFuture.completedFuture(Result.error("上传繁忙，请稍后重试"));
         }
     }
 
@@ -92,18 +105,16 @@ public class MediaController {
      */
     @DeleteMapping("/deletemedia/{mediaId}")
     public Result<Media> removeMedia(@PathVariable("mediaId") Integer mediaId) {
-        Media media=mediaMapper.selectById(mediaId);
+        Media media = mediaMapper.selectById(mediaId);
         if (media != null) {
-            Path path = Paths.get(media.getMediaPath());
             try {
-                Files.deleteIfExists(path);
-                int rows = mediaMapper.deleteById(mediaId);
-                if (rows > 0) {
+                // 相同内容的其他媒体仍在使用时只删除记录，最后一个引用删除时才删除文件
+                if (iMediaService.removeMedia(media)) {
                     return Result.success("删除成功");
                 } else {
                     return Result.error("删除失败");
                 }
-            } catch (IOException e) {
+            } catch (UncheckedIOException e) {
                 return Result.error("删除失败");
             }
         } else {
@@ -112,59 +123,91 @@ public class MediaController {
     }
 
     /**
-     * 通过接口获取所有媒体信息。
+     * 分页获取媒体清单。
      * <p>
-     * 本接口不接受任何参数，返回所有媒体信息的列表。
-     * 使用MediaMapper的selectList方法查询所有媒体信息。
+     * 只返回媒体的ID、名称、文件大小、图片尺寸和访问地址，不读取文件内容；
+     * 文件内容通过清单中的url逐个获取，或通过 getmediaarchive 打包下载。
      * </p>
      *
-     * @return Result<Media> 包含所有媒体信息的结果对象。结果对象中包含了操作的成功状态及媒体信息数据。
+     * @param pageNum     当前页码，从1开始
+     * @param pageSize    每页显示的媒体数量，超过上限时按上限返回
+     * @param searchCount 是否返回总数，默认返回。
+     * @return 包含媒体总数和媒体清单的结果对象；页码小于1时返回错误
      */
     @GetMapping("/getallmedia")
-    public Result<List<byte[]>> getAllMedia() {
-        // 查询所有媒体信息
-        List<Media> mediaList = mediaMapper.selectList(null);
-        if (mediaList != null && !mediaList.isEmpty()) {
-            try {
-                List<byte[]> allImages = new ArrayList<>();
-                for (Media media : mediaList) {
-                    Path path = Paths.get(media.getMediaPath());
-                    byte[] fileContent = Files.readAllBytes(path);
-                    allImages.add(fileContent);
-                }
-                return Result.success(allImages);
-            } catch (IOException e) {
-                return Result.error("读取文件失败");
-            }
-        } else {
-            return Result.error("未找到媒体文件");
+    public Result<Map<String, Object>> getAllMedia(@RequestParam(value = "pageNum", required = false, defaultValue = "1") Integer pageNum,
+                                                   @RequestParam(value = "pageSize", required = false, defaultValue = "20") Integer pageSize,
+                                                   @RequestParam(value = "searchCount", required = false, defaultValue = "true") Boolean searchCount) {
+        if (pageNum < 1) {
+            return Result.error("页码必须大于0");
         }
+        // 创建分页对象，总数单独从缓存读取
+        Page<Media> page = new Page<>(pageNum, KeysetCursor.clampPageSize(pageSize), false);
+        IPage<MediaManifestItem> manifest = iMediaService.pageManifest(page);
+        Map<String, Object> map = new HashMap<>();
+        if (searchCount) {
+            map.put("total", pageCountCache.count(MediaMapper.class, iMediaService::count));
+        }
+        map.put("rows", manifest.getRecords());
+        return Result.success(map);
+    }
+
+    /**
+     * 将所有媒体文件打包为ZIP下载。
+     * <p>
+     * 响应以流的方式边读边写，内存中只保留一个复制缓冲区，与媒体数量和文件大小无关。
+     * </p>
+     *
+     * @return ZIP文件流。
+     */
+    @GetMapping("/getmediaarchive")
+    public ResponseEntity<StreamingResponseBody> getMediaArchive() {
+        StreamingResponseBody body = iMediaService::writeArchive;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("media.zip").build().toString())
+                .body(body);
     }
 
     /**
      * 通过GET请求获取媒体文件。
      *
-     * 此方法处理来自客户端的GET请求，以获取指定路径的媒体文件（如图片）。
-     * 它首先尝试根据提供的媒体路径读取文件内容，然后将内容作为响应返回给客户端。
-     * 如果文件不存在或无法访问，方法将返回一个404状态码的响应，表示文件未找到。
+     * 文件以流的方式写出，不读入内存。Spring MVC 对 Resource 类型的响应体会自动处理
+     * Range 请求（返回206及对应的字节区间），并根据 ETag/Last-Modified 对条件请求返回304。
+     * 内容类型根据文件扩展名判断。只允许读取上传目录下的文件。
+     * 热点小文件从内存缓存返回，不读盘。
+     * 指定size时返回宽度不小于size的最小缩略图，缩略图尚未生成或原图更小时返回原图。
      *
      * @param mediaPath 请求中携带的媒体文件路径参数，用于指定要获取的媒体文件的位置。
-     * @return ResponseEntity 包含媒体文件内容的响应体，如果文件不存在，则返回一个空的响应体和404状态码。
+     * @param size      期望的图片宽度（像素），可选。
+     * @return ResponseEntity 包含媒体文件的响应，如果文件不存在，则返回一个空的响应体和404状态码。
      */
     @GetMapping("/getmedia")
-    public ResponseEntity<byte[]> getMedia(@RequestParam(value = "mediaPath") String mediaPath) {
+    public ResponseEntity<Resource> getMedia(@RequestParam(value = "mediaPath") String mediaPath,
+                                             @RequestParam(value = "size", required = false) Integer size) {
+        Path original = mediaStorage.resolve(mediaPath);
+        if (original == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Path path = mediaStorage.selectVariant(original, size);
         try {
-            // 根据提供的媒体路径获取文件的完整路径。
-            Path path = Paths.get(mediaPath);
-            // 读取文件的所有字节内容。
-            byte[] fileContent = Files.readAllBytes(path);
-
-            // 设置响应头信息，指定响应的内容类型为JPEG图片。
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_JPEG);
-
-            // 返回文件内容和相应的头信息。
-            return ResponseEntity.ok().headers(headers).body(fileContent);
+            // 根据文件大小和修改时间生成ETag（与nginx相同的做法），文件被覆盖后ETag随之变化
+            long fileSize = Files.size(path);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            String eTag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(fileSize) + "\"";
+
+            // 小文件优先从内存缓存返回，缓存条目按文件大小和修改时间校验
+            Resource resource = mediaBytesCache.get(path, fileSize, lastModified);
+            if (resource == null) {
+                resource = new FileSystemResource(path);
+            }
+            MediaType contentType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+            return ResponseEntity.ok()
+                    .contentType(contentType)
+                    .eTag(eTag)
+                    .lastModified(lastModified)
+                    .cacheControl(CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                    .body(resource);
         } catch (IOException e) {
             // 如果发生IO异常，说明文件不存在或无法访问，返回404状态码。
             return ResponseEntity.notFound().build();
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.blog.web.config.Result;
 import com.blog.web.entity.Tag;
 import com.blog.web.mapper.TagMapper;
+import com.blog.web.service.ITagService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,6 +24,9 @@ public class TagController {
     @Autowired
     private TagMapper tagMapper;
 
+    @Autowired
+    private ITagService iTagService;
+
     /**
      * 通过POST请求添加标签。
      *
@@ -35,11 +39,11 @@ public class TagController {
         tag.setCreatedAt(LocalDateTime.now());
         tag.setUpdatedAt(LocalDateTime.now());
 
-        // 调用标签Mapper插入标签到数据库
-        int rows = tagMapper.insert(tag);
+        // 调用标签服务插入标签到数据库，并使标签缓存失效
+        boolean saved = iTagService.save(tag);
 
         // 根据插入结果返回相应的操作结果
-        if (rows > 0) {
+        if (saved) {
             return Result.success("添加成功！");
         } else {
             return Result.error("添加失败！");
@@ -56,10 +60,10 @@ public class TagController {
      */
     @DeleteMapping("/deletetag/{tagId}")
     public Result<Tag> removetag(@PathVariable("tagId") Integer tagId) {
-        // 调用tagMapper的DeleteById方法，尝试删除ID为tagId的标签
-        int rows = tagMapper.deleteById(tagId);
-        // 检查删除操作影响的行数，如果大于0，则表示删除成功
-        if (rows > 0) {
+        // 调用标签服务的removeById方法，尝试删除ID为tagId的标签，并使标签缓存失效
+        boolean removed = iTagService.removeById(tagId);
+        // 检查删除操作是否成功
+        if (removed) {
             return Result.success("删除成功！");
         } else {
             // 如果影响的行数为0，说明删除操作失败
@@ -80,11 +84,11 @@ public class TagController {
     public Result<Tag> updatetag(@RequestBody Tag tag) {
         tag.setUpdatedAt(LocalDateTime.now());
 
-        // 调用tagMapper的update方法更新标签信息，传入更新条件和待更新的标签对象
-        int rows = tagMapper.updateById(tag);
+        // 调用标签服务的updateById方法更新标签信息，并使标签缓存失效
+        boolean updated = iTagService.updateById(tag);
 
         // 根据update方法的返回值判断更新操作是否成功
-        if (rows > 0) {
+        if (updated) {
             // 更新成功，返回成功的Result对象
             return Result.success("更新成功！");
         } else {
@@ -123,8 +127,8 @@ public class TagController {
      */
     @GetMapping("/getalltag")
     public Result<List<Tag>> getAllTag() {
-        // 调用tagMapper的selectList方法，不传入任何条件，查询所有标签
-        List<Tag> tags = tagMapper.selectList(null);
+        // 查询所有标签，优先读取本地快照，其次Redis，最后查询数据库
+        List<Tag> tags = iTagService.listAllCached();
 
         // 判断查询结果是否存在
         if (tags != null) {
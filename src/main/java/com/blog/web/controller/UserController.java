@@ -3,15 +3,18 @@ package com.blog.web.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.blog.web.config.PageCountCache;
 import com.blog.web.config.Result;
 import com.blog.web.config.security.JwtUtilService;
 import com.blog.web.config.security.MyAuthenticationProvider;
+import com.blog.web.config.security.PrincipalCache;
+import com.blog.web.config.security.TokenSessionStore;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.User;
 import com.blog.web.mapper.UserMapper;
 import com.blog.web.service.IUserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,8 +23,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -41,11 +46,14 @@ public class UserController {
     @Autowired
     private IUserService iUserService;
 
+    @Autowired
+    private PageCountCache pageCountCache;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private TokenSessionStore tokenSessionStore;
 
     @Autowired
     private MyAuthenticationProvider myAuthenticationProvider;
@@ -53,6 +61,9 @@ public class UserController {
     @Autowired
     private JwtUtilService jwtUtilService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     /**
      * 通过POST请求添加用户信息到数据库。
      *
@@ -93,8 +104,15 @@ public class UserController {
      */
     @DeleteMapping("/deleteuser/{userId}")
     public Result<User> removeUser(@PathVariable("userId") Integer userId) {
+        User existing = userMapper.selectById(userId);
         int rows = userMapper.deleteById(userId);
         if (rows > 0) {
+            if (existing != null) {
+                // 使被删除用户的认证缓存失效，并注销其会话
+                principalCache.invalidate(existing.getUsername());
+                tokenSessionStore.revokeAll(List.of(existing.getUsername()));
+                jwtUtilService.evictUser(existing.getUsername());
+            }
             return Result.success("删除成功");
         } else {
             return Result.error("删除失败");
@@ -115,7 +133,8 @@ public class UserController {
     @PutMapping("/updateuser")
     public Result<User> updateUser(@RequestBody User user) {
         // 如果密码非空，更新密码
-        if (StringUtils.isNotBlank(user.getPassword())) {
+        boolean passwordChanged = StringUtils.isNotBlank(user.getPassword());
+        if (passwordChanged) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
         // 如果电子邮件非空，更新电子邮件
@@ -136,11 +155,27 @@ public class UserController {
         }
         user.setUpdatedAt(LocalDateTime.now());
 
+        // 记录更新前的用户名，用于使认证缓存失效
+        User existing = userMapper.selectById(user.getUserId());
+
         // 更新用户信息
         // 根据非空属性更新记录
         int rows = userMapper.updateById(user);
 
         if (rows > 0) {
+            // 密码、角色等可能已变更，使新旧用户名对应的认证缓存失效
+            String oldUsername = existing != null ? existing.getUsername() : null;
+            principalCache.invalidate(oldUsername);
+            principalCache.invalidate(user.getUsername());
+            // 修改密码或用户名后，之前签发的令牌全部失效，需要重新登录
+            boolean usernameChanged = user.getUsername() != null && !user.getUsername().equals(oldUsername);
+            if (passwordChanged || usernameChanged) {
+                List<String> usernames = new ArrayList<>();
+                usernames.add(oldUsername);
+                usernames.add(user.getUsername());
+                tokenSessionStore.revokeAll(usernames);
+                usernames.forEach(jwtUtilService::evictUser);
+            }
             return Result.success("更新成功");
         } else {
             return Result.error("更新失败");
@@ -187,24 +222,46 @@ public class UserController {
      *
      * @param pageNum  当前页码，用于分页查询。
      * @param pageSize 每页显示的用户数量，用于分页查询。
+     * @param searchCount 是否返回总数，默认返回；无限滚动的客户端可传false跳过。
      * @return 返回一个包含总记录数和用户列表的结果对象。
      */
     @GetMapping("/getalluser")
-    public Result<Map<String, Object>> getAllUser(@RequestParam(value = "pageNum") Integer pageNum, @RequestParam(value = "pageSize") Integer pageSize) {
+    public Result<Map<String, Object>> getAllUser(@RequestParam(value = "pageNum") Integer pageNum, @RequestParam(value = "pageSize") Integer pageSize,
+                                                  @RequestParam(value = "searchCount", required = false, defaultValue = "true") Boolean searchCount) {
         // 初始化分页对象，用于后续的分页查询
-        Page<User> page = new Page<>(pageNum, pageSize);
+        Page<User> page = new Page<>(pageNum, pageSize, false);
         // 调用UserService的page方法，进行分页查询
         iUserService.page(page);
         // 创建一个HashMap，用于存放查询结果和总记录数
         HashMap<String, Object> map = new HashMap<>();
-        // 将查询结果的总记录数放入map中
-        map.put("total", page.getTotal());
+        // 总数读取缓存，不再每次执行COUNT(*)；无限滚动的客户端可以不查询总数
+        if (searchCount) {
+            map.put("total", pageCountCache.count(UserMapper.class, iUserService::count));
+        }
         // 将查询到的用户记录列表放入map中
         map.put("rows", page.getRecords());
         // 返回包含查询结果和总记录数的Result对象
         return Result.success(map);
     }
 
+    /**
+     * 按注册时间倒序游标分页获取用户列表。
+     * 不返回总记录数，需要总数时仍使用 {@link #getAllUser(Integer, Integer, Boolean)}。
+     *
+     * @param cursor   上一页返回的游标，为空表示第一页。
+     * @param pageSize 每页显示的用户数量。
+     * @return 包含用户列表、下一页游标和是否还有更多数据的结果对象。
+     */
+    @GetMapping("/getalluserbycursor")
+    public Result<CursorPage<User>> getAllUserByCursor(@RequestParam(value = "cursor", required = false) String cursor, @RequestParam(value = "pageSize", required = false) Integer pageSize) {
+        try {
+            return Result.success(iUserService.pageByCursor(cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            // 游标格式无效
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 用户登录接口。
      * 通过接收用户提交的登录信息，验证其合法性，并生成令牌（Token）以供用户后续请求使用。
@@ -268,13 +325,12 @@ public class UserController {
                 if (jwtUtilService.validateToken(token)) {
                     // 从Token中提取用户名
                     String username = jwtUtilService.extractUsernameFromToken(token);
-                    Boolean hasToken = redisTemplate.hasKey("token:" + username);
-                    if (hasToken == null || !hasToken) {
+                    // 删除Redis中的Token，一次往返完成检查和删除
+                    if (!tokenSessionStore.revoke(username)) {
                         return Result.error("Token已失效");
                     }
-
-                    // 删除Redis中的Token
-                    redisTemplate.delete("token:" + username);
+                    // 清除所有节点上该用户的已校验令牌缓存
+                    jwtUtilService.evictUser(username);
 
                     // 返回注销成功的信息。
                     return Result.success("注销成功");
@@ -0,0 +1,63 @@
+package com.blog.web.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 文章摘要，用于文章列表，不包含文章正文
+ * </p>
+ */
+@Data
+public class ArticleSummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文章id
+     */
+    private Integer articleId;
+
+    /**
+     * 文章标题
+     */
+    private String articleTitle;
+
+    /**
+     * 作者id
+     */
+    private Integer userId;
+
+    /**
+     * 分类id
+     */
+    private Integer categoryId;
+
+    /**
+     * 标签id
+     */
+    private Integer tagId;
+
+    /**
+     * 背景图片路径
+     */
+    private String backgroundPath;
+
+    /**
+     * 正文摘录，由服务端截取正文开头
+     */
+    private String excerpt;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,36 @@
+package com.blog.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * 浏览量排行中的一项
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleViewRank implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文章id
+     */
+    private Integer articleId;
+
+    /**
+     * 文章标题
+     */
+    private String articleTitle;
+
+    /**
+     * 浏览量
+     */
+    private long viewCount;
+
+}
@@ -0,0 +1,50 @@
+package com.blog.web.dto;
+
+import com.blog.web.entity.Comment;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * 评论树节点，序列化结果与原先的 {"comment": ..., "children": [...]} 结构一致
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class CommentNode implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 评论
+     */
+    private Comment comment;
+
+    /**
+     * 子评论，没有子评论时为null，不输出该字段。
+     * 发布到缓存后只整体替换，不在原列表上修改
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<CommentNode> children;
+
+    public CommentNode(Comment comment) {
+        this.comment = comment;
+    }
+
+    /**
+     * 添加子评论，子评论列表在第一次添加时才创建。
+     *
+     * @param child 子评论节点。
+     */
+    public void addChild(CommentNode child) {
+        if (children == null) {
+            children = new ArrayList<>(4);
+        }
+        children.add(child);
+    }
+}
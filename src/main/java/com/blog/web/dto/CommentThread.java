@@ -0,0 +1,47 @@
+package com.blog.web.dto;
+
+import com.blog.web.entity.Comment;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * <p>
+ * 分页评论线程中的一条评论，附带直接回复数和前几条回复
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+public class CommentThread implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 评论
+     */
+    private Comment comment;
+
+    /**
+     * 直接回复的总数
+     */
+    private int replyCount;
+
+    /**
+     * 前几条回复（按时间正序），其余回复通过 getreplies 展开
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<CommentThread> replies;
+
+    /**
+     * 展开剩余回复时使用的游标，接在已返回的回复之后；没有更多回复时不输出
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String replyCursor;
+
+    public CommentThread(Comment comment) {
+        this.comment = comment;
+    }
+}
@@ -0,0 +1,42 @@
+package com.blog.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果。
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    //当前页数据
+    private List<T> rows;
+
+    //下一页的游标，没有更多数据时为null
+    private String nextCursor;
+
+    //是否还有更多数据
+    private boolean hasMore;
+
+    /**
+     * 根据多查询一条的结果构建分页对象。
+     *
+     * @param rows     查询结果，最多比pageSize多一条，多出的一条说明还有下一页。
+     * @param pageSize 每页数量。
+     * @param cursorOf 根据当前页最后一条记录生成下一页游标的函数。
+     * @param <T>      记录类型。
+     * @return 游标分页结果。
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        boolean hasMore = rows.size() > pageSize;
+        List<T> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(page.get(page.size() - 1)) : null;
+        return new CursorPage<>(page, nextCursor, hasMore);
+    }
+}
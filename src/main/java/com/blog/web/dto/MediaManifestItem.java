@@ -0,0 +1,53 @@
+package com.blog.web.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * <p>
+ * 媒体清单中的一项，只包含元数据，文件内容通过url获取
+ * </p>
+ */
+@Data
+public class MediaManifestItem implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 图片id
+     */
+    private Integer mediaId;
+
+    /**
+     * 图片名
+     */
+    private String mediaName;
+
+    /**
+     * 文件大小（字节），文件不存在时为null
+     */
+    private Long size;
+
+    /**
+     * 图片宽度，无法识别的格式为null
+     */
+    private Integer width;
+
+    /**
+     * 图片高度，无法识别的格式为null
+     */
+    private Integer height;
+
+    /**
+     * 获取文件内容的地址
+     */
+    private String url;
+
+    /**
+     * 已生成的缩略图宽度，通过 url 加上 size 参数获取
+     */
+    private List<Integer> variants;
+
+}
@@ -0,0 +1,36 @@
+package com.blog.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * 输入提示中的一项：文章标题、标签名或分类名
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 类型：article、tag 或 category
+     */
+    private String type;
+
+    /**
+     * 文章、标签或分类的id
+     */
+    private Integer id;
+
+    /**
+     * 显示的文本
+     */
+    private String text;
+
+}
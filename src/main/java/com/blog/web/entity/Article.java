@@ -1,6 +1,7 @@
 package com.blog.web.entity;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import lombok.Data;
 
@@ -66,4 +67,10 @@ public class Article implements Serializable {
      */
     private LocalDateTime updatedAt;
 
+    /**
+     * 浏览量，保存在 article_view 表中，查询文章详情时从Redis的汇总值填充
+     */
+    @TableField(exist = false)
+    private Long viewCount;
+
 }
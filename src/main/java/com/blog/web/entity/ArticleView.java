@@ -0,0 +1,30 @@
+package com.blog.web.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * <p>
+ * 文章浏览量表，与文章表分开存放，累加浏览量不修改文章行
+ * </p>
+ */
+@Data
+public class ArticleView implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文章id，主键
+     */
+    @TableId(value = "article_id", type = IdType.INPUT)
+    private Integer articleId;
+
+    /**
+     * 浏览量
+     */
+    private Long viewCount;
+
+}
@@ -35,4 +35,19 @@ public class Media implements Serializable {
      */
     private String mediaPath;
 
+    /**
+     * 文件内容SHA-256，旧数据为空
+     */
+    private String mediaHash;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long mediaSize;
+
+    /**
+     * 已生成的缩略图宽度，逗号分隔；空字符串表示无需生成，null表示尚未处理
+     */
+    private String mediaVariants;
+
 }
@@ -0,0 +1,46 @@
+package com.blog.web.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * <p>
+ * 媒体文件内容表，相同内容的媒体共用一份文件
+ * </p>
+ */
+@Data
+public class MediaBlob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 文件内容SHA-256，主键
+     */
+    @TableId(value = "blob_hash", type = IdType.INPUT)
+    private String blobHash;
+
+    /**
+     * 文件存储路径
+     */
+    private String blobPath;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long blobSize;
+
+    /**
+     * 引用该内容的媒体数
+     */
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+}
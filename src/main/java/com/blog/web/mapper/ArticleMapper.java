@@ -1,7 +1,13 @@
 package com.blog.web.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.blog.web.dto.ArticleSummary;
 import com.blog.web.entity.Article;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * <p>
@@ -13,4 +19,25 @@ import com.blog.web.entity.Article;
  */
 public interface ArticleMapper extends BaseMapper<Article> {
 
+    /**
+     * 分页查询文章摘要，不读取完整正文。
+     *
+     * @param page          分页参数。
+     * @param excerptLength 摘录的字符数。
+     * @return 文章摘要分页结果。
+     */
+    IPage<ArticleSummary> selectSummaryPage(IPage<ArticleSummary> page, @Param("excerptLength") int excerptLength);
+
+    /**
+     * 按 (created_at, article_id) 倒序游标查询文章摘要。
+     *
+     * @param createdAt     上一页最后一条的创建时间，为null表示第一页。
+     * @param articleId     上一页最后一条的文章ID。
+     * @param limit         查询条数。
+     * @param excerptLength 摘录的字符数。
+     * @return 文章摘要列表。
+     */
+    List<ArticleSummary> selectSummaryByCursor(@Param("createdAt") LocalDateTime createdAt, @Param("articleId") Integer articleId,
+                                               @Param("limit") int limit, @Param("excerptLength") int excerptLength);
+
 }
@@ -0,0 +1,42 @@
+package com.blog.web.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.web.entity.ArticleView;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * <p>
+ * 文章浏览量表 Mapper 接口
+ * </p>
+ */
+public interface ArticleViewMapper extends BaseMapper<ArticleView> {
+
+    /**
+     * 批量累加浏览量，一条INSERT ... ON DUPLICATE KEY UPDATE语句完成。只累加仍存在的文章，已删除的文章不会重新插入记录。
+     *
+     * @param deltas 文章ID -> 增量。
+     * @return 影响的行数。
+     */
+    int addViewCounts(@Param("deltas") Map<Integer, Long> deltas);
+
+    /**
+     * 记录已写入的批次，应与累加浏览量在同一事务中执行。
+     *
+     * @param batchId 批次ID。
+     * @return 插入的行数。
+     * @throws org.springframework.dao.DuplicateKeyException 如果该批次已写入过。
+     */
+    int insertFlush(@Param("batchId") String batchId);
+
+    /**
+     * 删除早于指定时间的批次记录。
+     *
+     * @param before 时间。
+     * @return 删除的行数。
+     */
+    int deleteFlushesBefore(@Param("before") LocalDateTime before);
+
+}
@@ -2,6 +2,11 @@ package com.blog.web.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.blog.web.entity.Comment;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * <p>
@@ -13,4 +18,29 @@ import com.blog.web.entity.Comment;
  */
 public interface CommentMapper extends BaseMapper<Comment> {
 
+    /**
+     * 统计每条评论的直接回复数。
+     *
+     * @param parentIds 评论ID集合，不能为空。
+     * @return 每行包含 parentId 和 replyCount；没有回复的评论不出现在结果中。
+     */
+    List<Map<String, Object>> countReplies(@Param("parentIds") Collection<Integer> parentIds);
+
+    /**
+     * 查询每条评论按时间正序的前几条直接回复，一条SQL完成。
+     *
+     * @param parentIds 评论ID集合，不能为空。
+     * @param limit     每条评论最多返回的回复数。
+     * @return 回复列表，按父评论ID、创建时间排序。
+     */
+    List<Comment> selectReplyPreview(@Param("parentIds") Collection<Integer> parentIds, @Param("limit") int limit);
+
+    /**
+     * 多行INSERT批量插入评论，插入后回填每条评论的自增ID。
+     *
+     * @param comments 评论列表，不能为空。
+     * @return 插入的行数。
+     */
+    int insertBatch(@Param("comments") List<Comment> comments);
+
 }
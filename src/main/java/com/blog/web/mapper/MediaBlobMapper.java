@@ -0,0 +1,32 @@
+package com.blog.web.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.web.entity.MediaBlob;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * <p>
+ * 媒体文件内容表 Mapper 接口
+ * </p>
+ */
+public interface MediaBlobMapper extends BaseMapper<MediaBlob> {
+
+    /**
+     * 增加内容的引用数，内容不存在时插入引用数为1的记录。执行后该行在事务结束前保持锁定。
+     *
+     * @param blobHash 文件内容SHA-256。
+     * @param blobPath 内容不存在时使用的存储路径，已存在时保持原路径。
+     * @param blobSize 文件大小。
+     * @return 影响的行数。
+     */
+    int acquire(@Param("blobHash") String blobHash, @Param("blobPath") String blobPath, @Param("blobSize") long blobSize);
+
+    /**
+     * 减少内容的引用数。
+     *
+     * @param blobHash 文件内容SHA-256。
+     * @return 影响的行数。
+     */
+    int release(@Param("blobHash") String blobHash);
+
+}
@@ -1,6 +1,9 @@
 package com.blog.web.service;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.blog.web.dto.ArticleSummary;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.Article;
 
 /**
@@ -13,4 +16,41 @@ import com.blog.web.entity.Article;
  */
 public interface IArticleService extends IService<Article> {
 
+    /**
+     * 根据文章ID获取文章详情，优先读取Redis缓存。
+     * <p>
+     * 缓存未命中时同一文章的并发请求只查询一次数据库，不存在的文章ID也会被短暂缓存。
+     *
+     * @param articleId 文章ID。
+     * @return 文章详情；如果文章不存在则返回null。
+     */
+    Article getArticleById(Integer articleId);
+
+    /**
+     * 分页查询文章摘要，列表不加载完整正文。
+     *
+     * @param page 分页参数。
+     * @return 文章摘要分页结果。
+     */
+    IPage<ArticleSummary> pageSummary(IPage<ArticleSummary> page);
+
+    /**
+     * 按创建时间倒序游标分页查询文章摘要。
+     *
+     * @param cursor   上一页返回的游标，为空表示第一页。
+     * @param pageSize 每页数量。
+     * @return 游标分页结果。
+     * @throws IllegalArgumentException 如果游标格式无效。
+     */
+    CursorPage<ArticleSummary> pageByCursor(String cursor, Integer pageSize);
+
+    /**
+     * 按相关度分页检索文章标题和正文，查询全文索引，不访问数据库。
+     *
+     * @param keyword 关键词。
+     * @param page    分页参数。
+     * @return 文章摘要分页结果。
+     */
+    IPage<ArticleSummary> search(String keyword, IPage<ArticleSummary> page);
+
 }
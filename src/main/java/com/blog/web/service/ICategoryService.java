@@ -3,6 +3,8 @@ package com.blog.web.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.blog.web.entity.Category;
 
+import java.util.List;
+
 /**
  * <p>
  * 分类表 服务类
@@ -13,4 +15,11 @@ import com.blog.web.entity.Category;
  */
 public interface ICategoryService extends IService<Category> {
 
+    /**
+     * 获取所有分类，优先读取本地快照和Redis缓存。
+     *
+     * @return 不可修改的分类列表。
+     */
+    List<Category> listAllCached();
+
 }
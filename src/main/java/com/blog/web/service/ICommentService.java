@@ -1,6 +1,8 @@
 package com.blog.web.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.blog.web.dto.CommentThread;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.Comment;
 
 /**
@@ -13,4 +15,36 @@ import com.blog.web.entity.Comment;
  */
 public interface ICommentService extends IService<Comment> {
 
+    /**
+     * 按创建时间倒序游标分页查询评论。
+     *
+     * @param cursor   上一页返回的游标，为空表示第一页。
+     * @param pageSize 每页数量。
+     * @return 游标分页结果。
+     * @throws IllegalArgumentException 如果游标格式无效。
+     */
+    CursorPage<Comment> pageByCursor(String cursor, Integer pageSize);
+
+    /**
+     * 按创建时间倒序游标分页查询文章的根评论，每条根评论附带回复数和前几条回复。
+     *
+     * @param articleId 文章ID。
+     * @param cursor    上一页返回的游标，为空表示第一页。
+     * @param pageSize  每页根评论数量。
+     * @return 游标分页结果。
+     * @throws IllegalArgumentException 如果游标格式无效。
+     */
+    CursorPage<CommentThread> pageThreads(Integer articleId, String cursor, Integer pageSize);
+
+    /**
+     * 按创建时间正序游标分页查询评论的直接回复，用于展开子评论。
+     *
+     * @param parentId 父评论ID。
+     * @param cursor   上一页或线程中返回的游标，为空表示从第一条回复开始。
+     * @param pageSize 每页回复数量。
+     * @return 游标分页结果，每条回复同样附带回复数和前几条回复。
+     * @throws IllegalArgumentException 如果游标格式无效。
+     */
+    CursorPage<CommentThread> pageReplies(Integer parentId, String cursor, Integer pageSize);
+
 }
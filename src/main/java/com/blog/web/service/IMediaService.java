@@ -1,7 +1,15 @@
 package com.blog.web.service;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.blog.web.dto.MediaManifestItem;
 import com.blog.web.entity.Media;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>
@@ -13,4 +21,41 @@ import com.blog.web.entity.Media;
  */
 public interface IMediaService extends IService<Media> {
 
+    /**
+     * 在媒体IO线程池中保存上传的文件并写入媒体记录。
+     * 文件从上传流直接复制到临时文件，同时计算内容的SHA-256；相同内容已存在时只增加引用，
+     * 否则原子重命名到按哈希分片的存储路径。
+     *
+     * @param file      上传的文件。
+     * @param mediaName 媒体名称。
+     * @return 保存完成的媒体记录。
+     * @throws java.util.concurrent.RejectedExecutionException 如果线程池和队列已满。
+     */
+    CompletableFuture<Media> upload(MultipartFile file, String mediaName);
+
+    /**
+     * 删除媒体记录并释放其内容引用，最后一个引用被删除时才删除文件。
+     *
+     * @param media 待删除的媒体记录。
+     * @return 如果删除成功，返回true；如果记录已不存在，返回false。
+     * @throws java.io.UncheckedIOException 如果删除文件失败，此时媒体记录不会被删除。
+     */
+    boolean removeMedia(Media media);
+
+    /**
+     * 分页查询媒体清单：ID、名称、文件大小、图片尺寸和访问地址，不读取文件内容。
+     *
+     * @param page 分页参数。
+     * @return 媒体清单分页结果。
+     */
+    IPage<MediaManifestItem> pageManifest(Page<Media> page);
+
+    /**
+     * 将所有媒体文件依次写入ZIP流。按ID分批查询元数据，每次只缓冲一个文件块。
+     *
+     * @param out 输出流，方法结束后不会关闭。
+     * @throws IOException 如果写入失败。
+     */
+    void writeArchive(OutputStream out) throws IOException;
+
 }
@@ -3,6 +3,8 @@ package com.blog.web.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.blog.web.entity.Tag;
 
+import java.util.List;
+
 /**
  * <p>
  * 标签表 服务类
@@ -13,4 +15,11 @@ import com.blog.web.entity.Tag;
  */
 public interface ITagService extends IService<Tag> {
 
+    /**
+     * 获取所有标签，优先读取本地快照和Redis缓存。
+     *
+     * @return 不可修改的标签列表。
+     */
+    List<Tag> listAllCached();
+
 }
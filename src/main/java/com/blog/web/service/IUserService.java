@@ -1,6 +1,7 @@
 package com.blog.web.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.User;
 
 /**
@@ -13,4 +14,14 @@ import com.blog.web.entity.User;
  */
 public interface IUserService extends IService<User> {
 
+    /**
+     * 按创建时间倒序游标分页查询用户。
+     *
+     * @param cursor   上一页返回的游标，为空表示第一页。
+     * @param pageSize 每页数量。
+     * @return 游标分页结果。
+     * @throws IllegalArgumentException 如果游标格式无效。
+     */
+    CursorPage<User> pageByCursor(String cursor, Integer pageSize);
+
 }
@@ -1,11 +1,30 @@
 package com.blog.web.service.impl;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.blog.web.config.KeysetCursor;
+import com.blog.web.config.search.ArticleSearchIndex;
+import com.blog.web.config.search.SuggestionIndex;
+import com.blog.web.dto.ArticleSummary;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.Article;
 import com.blog.web.mapper.ArticleMapper;
 import com.blog.web.service.IArticleService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 /**
  * <p>
  * 文章表 服务实现类
@@ -14,7 +33,188 @@ import org.springframework.stereotype.Service;
  * @author 苍晖
  * @since 2024-07-01
  */
+@Slf4j
 @Service
 public class ArticleServiceImpl extends ServiceImpl<ArticleMapper, Article> implements IArticleService {
 
+    private static final String KEY_PREFIX = "article:";
+
+    /**
+     * 文章不存在时写入缓存的占位值，用于防止不存在的ID反复穿透到数据库。
+     */
+    private static final String NULL_MARKER = "<null>";
+
+    @Value("${article.excerpt-length:150}")
+    private int excerptLength;
+
+    @Value("${cache.article.ttl-seconds:1800}")
+    private long ttlSeconds;
+
+    @Value("${cache.article.null-ttl-seconds:60}")
+    private long nullTtlSeconds;
+
+    /**
+     * 修改后第二次删除缓存的延迟，应大于一次数据库查询加写缓存的耗时。
+     */
+    @Value("${cache.article.double-delete-delay-ms:1000}")
+    private long doubleDeleteDelayMs;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private ArticleViewCounter articleViewCounter;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    /**
+     * 正在从数据库加载的文章，同一文章的并发未命中请求共享同一次查询。
+     */
+    private final ConcurrentHashMap<Integer, CompletableFuture<Article>> loading = new ConcurrentHashMap<>();
+
+    @Override
+    public Article getArticleById(Integer articleId) {
+        if (articleId == null) {
+            return null;
+        }
+        Object cached = readCache(articleId);
+        if (cached instanceof Article article) {
+            return article;
+        }
+        if (NULL_MARKER.equals(cached)) {
+            return null;
+        }
+
+        // 缓存未命中，只有第一个请求查询数据库，其余请求等待其结果
+        CompletableFuture<Article> future = new CompletableFuture<>();
+        CompletableFuture<Article> existing = loading.putIfAbsent(articleId, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Article article = baseMapper.selectById(articleId);
+            writeCache(articleId, article);
+            future.complete(article);
+            return article;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(articleId, future);
+        }
+    }
+
+    @Override
+    public boolean save(Article entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            // 清除可能存在的空值占位
+            evict(entity.getArticleId());
+            articleSearchIndex.reindex(entity.getArticleId());
+            suggestionIndex.put(SuggestionIndex.ARTICLE, entity.getArticleId(), entity.getArticleTitle());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(Article entity) {
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            evict(entity.getArticleId());
+            articleSearchIndex.reindex(entity.getArticleId());
+            suggestionIndex.put(SuggestionIndex.ARTICLE, entity.getArticleId(), entity.getArticleTitle());
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed && id instanceof Integer articleId) {
+            evict(articleId);
+            articleSearchIndex.reindex(articleId);
+            suggestionIndex.remove(SuggestionIndex.ARTICLE, articleId);
+            articleViewCounter.remove(articleId);
+        }
+        return removed;
+    }
+
+    private Object readCache(Integer articleId) {
+        try {
+            return redisTemplate.opsForValue().get(KEY_PREFIX + articleId);
+        } catch (Exception e) {
+            // Redis不可用时直接查询数据库
+            log.warn("读取文章缓存失败, articleId={}", articleId, e);
+            return null;
+        }
+    }
+
+    private void writeCache(Integer articleId, Article article) {
+        try {
+            if (article != null) {
+                // 过期时间加入随机偏移，避免大量文章同时过期
+                long ttl = ttlSeconds + ThreadLocalRandom.current().nextLong(ttlSeconds / 10 + 1);
+                redisTemplate.opsForValue().set(KEY_PREFIX + articleId, article, ttl, TimeUnit.SECONDS);
+            } else {
+                redisTemplate.opsForValue().set(KEY_PREFIX + articleId, NULL_MARKER, nullTtlSeconds, TimeUnit.SECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("写入文章缓存失败, articleId={}", articleId, e);
+        }
+    }
+
+    /**
+     * 修改后清除缓存（延迟双删）。
+     * <p>
+     * 修改前已开始的查询（本节点或其他节点）可能在第一次删除之后才把旧数据写回缓存，
+     * 因此延迟一段时间后再删除一次；本节点正在进行的查询不再被后续请求复用。
+     */
+    private void evict(Integer articleId) {
+        if (articleId == null) {
+            return;
+        }
+        loading.remove(articleId);
+        delete(articleId);
+        try {
+            taskScheduler.schedule(() -> delete(articleId), Instant.now().plusMillis(doubleDeleteDelayMs));
+        } catch (RuntimeException e) {
+            log.warn("提交延迟删除文章缓存失败, articleId={}", articleId, e);
+        }
+    }
+
+    private void delete(Integer articleId) {
+        try {
+            redisTemplate.delete(KEY_PREFIX + articleId);
+        } catch (Exception e) {
+            log.warn("清除文章缓存失败, articleId={}", articleId, e);
+        }
+    }
+
+    @Override
+    public IPage<ArticleSummary> pageSummary(IPage<ArticleSummary> page) {
+        return baseMapper.selectSummaryPage(page, excerptLength);
+    }
+
+    @Override
+    public CursorPage<ArticleSummary> pageByCursor(String cursor, Integer pageSize) {
+        int size = KeysetCursor.clampPageSize(pageSize);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<ArticleSummary> rows = after == null
+                ? baseMapper.selectSummaryByCursor(null, null, size + 1, excerptLength)
+                : baseMapper.selectSummaryByCursor(after.createdAt(), after.id(), size + 1, excerptLength);
+        return CursorPage.of(rows, size, row -> KeysetCursor.encode(row.getCreatedAt(), row.getArticleId()));
+    }
+
+    @Override
+    public IPage<ArticleSummary> search(String keyword, IPage<ArticleSummary> page) {
+        return articleSearchIndex.search(keyword, page);
+    }
+
 }
@@ -0,0 +1,540 @@
+package com.blog.web.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.blog.web.entity.ArticleView;
+import com.blog.web.mapper.ArticleViewMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 文章浏览量计数。
+ * <p>
+ * 每次浏览只在本节点内存中累加（每篇文章一个 {@link LongAdder}，高并发下按线程分段计数，不加锁），
+ * 不访问Redis和数据库。定时任务分三级汇总：
+ * <ol>
+ * <li>每秒把各节点的增量分批（每批最多500篇）用Lua脚本原子写入Redis：HINCRBY 到待写入哈希、ZINCRBY 到排行有序集合；</li>
+ * <li>每分钟由持有Redis锁的一个节点把待写入哈希原子改名后取出，每500篇一条INSERT ... ON DUPLICATE KEY UPDATE，在同一事务中累加到 {@code article_view} 表，不修改文章行；</li>
+ * <li>排行有序集合保存总浏览量，最多浏览排行和文章详情中的浏览量直接从中读取。</li>
+ * </ol>
+ * 改名时同时为该哈希生成批次ID，写入数据库的事务先在 {@code article_view_flush} 表中插入批次ID，
+ * 已存在则跳过累加；因此进程在写入后、删除哈希前退出，或写入耗时超过锁的有效期、另一个节点拿到锁重新处理同一哈希时，
+ * 都不会重复累加。
+ * <p>
+ * 排行有序集合由持有同一把锁的节点初始化，完成后设置初始化标记：先把数据库中的浏览量写入临时有序集合，
+ * 再用Lua脚本原子地加上待写入哈希中的增量并改名为排行有序集合。标记不存在时（首次启动或Redis数据丢失）
+ * 增量只写入待写入哈希，不写入排行有序集合，初始化完成后两者保持一致。
+ * 每批增量带有批次ID，脚本先用 SET NX 记录批次ID，已记录过的批次不再累加；写入失败的批次保留在内存中，
+ * 之后用同一个批次ID重试，即使上次失败时脚本实际已在Redis中执行，也不会重复计数。
+ * 有未写入的批次时不再从计数器中取出新的增量，Redis长时间不可用时内存占用不会增长。
+ * <p>
+ * 删除文章时先在Redis中记录删除标记，再删除数据库中的浏览量。写入Redis的脚本、写入数据库的事务和初始化排行
+ * 都会跳过带有删除标记的文章，因此各节点之后才写入的增量、未写入的批次和正在写入数据库的批次都不会恢复已删除文章的浏览量。
+ * <p>
+ * 两个定时任务在自己的两个线程中执行，不占用应用共享的调度线程，写入数据库耗时较长时也不会推迟写入Redis。
+ */
+@Slf4j
+@Service
+public class ArticleViewCounter implements ApplicationRunner {
+
+    private static final String PENDING_KEY = "article:views:pending";
+
+    private static final String FLUSHING_KEY = "article:views:flushing";
+
+    private static final String RANK_KEY = "article:views:rank";
+
+    private static final String LOCK_KEY = "article:views:lock";
+
+    private static final String FLUSHING_ID_KEY = "article:views:flushing:id";
+
+    private static final String SEEDED_KEY = "article:views:seeded";
+
+    private static final String SEEDING_KEY_PREFIX = "article:views:seeding:";
+
+    private static final String BATCH_KEY_PREFIX = "article:views:batch:";
+
+    /**
+     * 已删除文章的删除标记：文章ID -> 删除时间（毫秒）。
+     */
+    private static final String REMOVED_KEY = "article:views:removed";
+
+    private static final byte[] RANK_KEY_BYTES = RANK_KEY.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] SEEDED_KEY_BYTES = SEEDED_KEY.getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 数据库中已写入批次ID的保留天数。
+     */
+    private static final int FLUSH_RETENTION_DAYS = 7;
+
+    /**
+     * 删除标记的保留天数，应远大于批次在内存中等待重试和在Redis中等待写入数据库的时间。
+     */
+    private static final int REMOVED_RETENTION_DAYS = 7;
+
+    /**
+     * 每条SQL语句、每次Lua脚本最多累加的文章数。
+     */
+    private static final int DB_BATCH = 500;
+
+    /**
+     * 原子写入一批增量：KEYS = [批次标记, 待写入哈希, 排行有序集合, 初始化标记, 删除标记]，
+     * ARGV = [批次标记过期秒数, 文章ID1, 增量1, 文章ID2, 增量2, ...]。批次已写入过时返回0。
+     * 排行有序集合尚未初始化时只写入待写入哈希；已删除的文章跳过。
+     */
+    private static final DefaultRedisScript<Long> APPLY_BATCH_SCRIPT = new DefaultRedisScript<>(
+            "if not redis.call('set', KEYS[1], '1', 'NX', 'EX', ARGV[1]) then return 0 end "
+                    + "local seeded = redis.call('exists', KEYS[4]) == 1 "
+                    + "for i = 2, #ARGV, 2 do "
+                    + "if redis.call('hexists', KEYS[5], ARGV[i]) == 0 then "
+                    + "redis.call('hincrby', KEYS[2], ARGV[i], ARGV[i + 1]) "
+                    + "if seeded then redis.call('zincrby', KEYS[3], ARGV[i + 1], ARGV[i]) end "
+                    + "end "
+                    + "end "
+                    + "return 1", Long.class);
+
+    /**
+     * 删除文章的浏览量：KEYS = [删除标记, 排行有序集合, 待写入哈希]，ARGV = [文章ID, 删除时间]。
+     * 记录删除标记并从排行和待写入哈希中移除，三步原子完成。
+     */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('zrem', KEYS[2], ARGV[1]) "
+                    + "redis.call('hdel', KEYS[3], ARGV[1]) "
+                    + "return 1", Long.class);
+
+    /**
+     * 取出待写入数据库的哈希：KEYS = [待写入哈希, 改名后的哈希, 批次ID]，ARGV = [新的批次ID]。
+     * 上次改名后未写完的哈希优先，返回其批次ID；否则把待写入哈希改名并记录新的批次ID；都不存在时返回nil。
+     */
+    private static final DefaultRedisScript<String> TAKE_FLUSHING_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[2]) == 1 then "
+                    + "local id = redis.call('get', KEYS[3]) "
+                    + "if id then return id end "
+                    + "redis.call('set', KEYS[3], ARGV[1]) return ARGV[1] "
+                    + "end "
+                    + "if redis.call('exists', KEYS[1]) == 0 then return false end "
+                    + "redis.call('rename', KEYS[1], KEYS[2]) "
+                    + "redis.call('set', KEYS[3], ARGV[1]) "
+                    + "return ARGV[1]", String.class);
+
+    /**
+     * 写入数据库后删除改名后的哈希：KEYS = [改名后的哈希, 批次ID]，ARGV = [批次ID]。
+     * 只在批次ID一致时删除，不会删掉其他节点之后取出的批次。
+     */
+    private static final DefaultRedisScript<Long> FINISH_FLUSHING_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[2]) == ARGV[1] then return redis.call('del', KEYS[1], KEYS[2]) else return 0 end", Long.class);
+
+    /**
+     * 完成初始化：KEYS = [临时有序集合, 排行有序集合, 待写入哈希, 初始化标记, 删除标记]。
+     * 把待写入哈希中的增量加到临时有序集合，移除读取数据库之后才删除的文章，改名为排行有序集合并设置标记。
+     */
+    private static final DefaultRedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "local pending = redis.call('hgetall', KEYS[3]) "
+                    + "for i = 1, #pending, 2 do redis.call('zincrby', KEYS[1], pending[i + 1], pending[i]) end "
+                    + "local removed = redis.call('hkeys', KEYS[5]) "
+                    + "for i = 1, #removed do redis.call('zrem', KEYS[1], removed[i]) end "
+                    + "if redis.call('exists', KEYS[1]) == 1 then redis.call('rename', KEYS[1], KEYS[2]) "
+                    + "else redis.call('del', KEYS[2]) end "
+                    + "redis.call('set', KEYS[4], '1') "
+                    + "return 1", Long.class);
+
+    /**
+     * 只在锁仍属于自己时删除，避免锁过期后删掉其他节点的锁。
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    @Value("${view-count.lock-seconds:60}")
+    private long lockSeconds;
+
+    /**
+     * 批次标记的保留时间，应远大于重试的间隔。
+     */
+    @Value("${view-count.batch-marker-seconds:3600}")
+    private long batchMarkerSeconds;
+
+    @Value("${view-count.redis-flush-ms:1000}")
+    private long redisFlushMs;
+
+    @Value("${view-count.db-flush-ms:60000}")
+    private long dbFlushMs;
+
+    /**
+     * 排行有序集合尚未初始化时从数据库读取的浏览量缓存的文章数上限。
+     */
+    @Value("${view-count.fallback-maximum-size:10000}")
+    private long fallbackMaximumSize;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ArticleViewMapper articleViewMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 本节点尚未写入Redis的增量。条目不删除，数量不超过被浏览过的文章数。
+     */
+    private final ConcurrentHashMap<Integer, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 已从计数器中取出、尚未确认写入Redis的批次，按取出顺序重试。
+     */
+    private final Queue<Batch> unsent = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 排行有序集合尚未初始化或Redis不可用时从数据库读取的浏览量（包括没有记录的文章），
+     * 每篇文章在一个写入数据库的间隔内只查询一次。
+     */
+    private Cache<Integer, Long> fallbackCounts;
+
+    /**
+     * 执行写入Redis和写入数据库两个定时任务的线程。
+     */
+    private ThreadPoolTaskScheduler scheduler;
+
+    @PostConstruct
+    public void init() {
+        fallbackCounts = Caffeine.newBuilder()
+                .maximumSize(fallbackMaximumSize)
+                .expireAfterWrite(dbFlushMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 记录一次浏览，只修改内存计数。
+     *
+     * @param articleId 文章ID。
+     */
+    public void record(Integer articleId) {
+        if (articleId != null) {
+            counters.computeIfAbsent(articleId, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 读取文章的总浏览量（排行有序集合中的分数），不包含本节点最近一秒内尚未写入Redis的增量。
+     * <p>
+     * 分数和初始化标记在一次管道往返中读取。排行已初始化时其中包含所有有浏览量的文章，不在其中即为0，不查询数据库；
+     * 尚未初始化或读取失败时返回数据库中的浏览量，结果（包括没有记录的文章）在本节点缓存一个写入数据库的间隔。
+     *
+     * @param articleId 文章ID。
+     * @return 浏览量。
+     */
+    public Long count(Integer articleId) {
+        byte[] member = articleId.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.zSetCommands().zScore(RANK_KEY_BYTES, member);
+                connection.keyCommands().exists(SEEDED_KEY_BYTES);
+                return null;
+            });
+            if (results.get(0) instanceof Double score) {
+                return score.longValue();
+            }
+            if (Boolean.TRUE.equals(results.get(1))) {
+                return 0L;
+            }
+        } catch (Exception e) {
+            log.warn("读取浏览量失败, articleId={}", articleId, e);
+        }
+        return fallbackCounts.get(articleId, id -> {
+            ArticleView view = articleViewMapper.selectById(id);
+            return view != null ? view.getViewCount() : 0L;
+        });
+    }
+
+    /**
+     * 按浏览量倒序返回前几篇文章，一条ZREVRANGE命令完成。
+     *
+     * @param limit 返回的数量。
+     * @return 文章ID -> 浏览量，按浏览量倒序。
+     */
+    public Map<Integer, Long> top(int limit) {
+        Map<Integer, Long> top = new LinkedHashMap<>();
+        Set<ZSetOperations.TypedTuple<String>> tuples =
+                stringRedisTemplate.opsForZSet().reverseRangeWithScores(RANK_KEY, 0, limit - 1);
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    top.put(Integer.valueOf(tuple.getValue()), tuple.getScore().longValue());
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * 文章删除后调用：先记录删除标记并从排行和待写入的增量中移除，再删除数据库中的浏览量。
+     * <p>
+     * 删除标记必须先于数据库删除：正在写入数据库的事务在累加后检查删除标记，
+     * 检查时标记尚不存在的，本方法的删除会等待该事务提交后再执行。
+     *
+     * @param articleId 文章ID。
+     */
+    public void remove(Integer articleId) {
+        counters.remove(articleId);
+        fallbackCounts.invalidate(articleId);
+        try {
+            stringRedisTemplate.execute(REMOVE_SCRIPT, List.of(REMOVED_KEY, RANK_KEY, PENDING_KEY),
+                    articleId.toString(), Long.toString(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.warn("删除浏览量记录失败, articleId={}", articleId, e);
+        }
+        articleViewMapper.deleteById(articleId);
+    }
+
+    /**
+     * 启动完成后在单独的线程中开始两个定时任务，写入数据库立即执行一次，排行有序集合尚未初始化时随之初始化。
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.setThreadNamePrefix("view-count-");
+        // 关闭时等待正在执行的写入完成，之后不再开始新的写入
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::flushToDatabase, Duration.ofMillis(dbFlushMs));
+        scheduler.scheduleWithFixedDelay(this::flushToRedis, Duration.ofMillis(redisFlushMs));
+    }
+
+    /**
+     * 把本节点的增量分批原子写入Redis，写入失败的批次保留到下次重试。
+     */
+    public synchronized void flushToRedis() {
+        if (unsent.isEmpty()) {
+            drainCounters();
+        }
+        Batch batch;
+        while ((batch = unsent.peek()) != null) {
+            try {
+                stringRedisTemplate.execute(APPLY_BATCH_SCRIPT,
+                        List.of(BATCH_KEY_PREFIX + batch.id(), PENDING_KEY, RANK_KEY, SEEDED_KEY, REMOVED_KEY),
+                        batch.args(batchMarkerSeconds));
+            } catch (Exception e) {
+                log.warn("写入浏览量到Redis失败，稍后重试, 未写入批次数={}", unsent.size(), e);
+                return;
+            }
+            unsent.poll();
+        }
+    }
+
+    /**
+     * 从计数器中取出增量，每500篇组成一个批次。
+     */
+    private void drainCounters() {
+        Map<Integer, Long> deltas = new HashMap<>();
+        for (Map.Entry<Integer, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+            if (deltas.size() == DB_BATCH) {
+                unsent.add(new Batch(UUID.randomUUID().toString(), deltas));
+                deltas = new HashMap<>();
+            }
+        }
+        if (!deltas.isEmpty()) {
+            unsent.add(new Batch(UUID.randomUUID().toString(), deltas));
+        }
+    }
+
+    /**
+     * 由一个节点把Redis中汇总的增量批量写入数据库，排行有序集合尚未初始化时随后初始化。
+     */
+    public void flushToDatabase() {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, Duration.ofSeconds(lockSeconds));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("获取浏览量写入锁失败", e);
+            return;
+        }
+        try {
+            flushPending();
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(SEEDED_KEY))) {
+                seed();
+            }
+            pruneRemoved();
+        } catch (Exception e) {
+            log.warn("写入浏览量到数据库失败，下次重试", e);
+        } finally {
+            try {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(LOCK_KEY), token);
+            } catch (Exception e) {
+                log.warn("释放浏览量写入锁失败", e);
+            }
+        }
+    }
+
+    /**
+     * 把待写入哈希原子改名后写入数据库。
+     * <p>
+     * 改名后的增量写入新的哈希，不会在读取和删除之间丢失；上次改名后未写完的批次优先处理。
+     * 累加后在同一事务中删除带有删除标记的文章的记录，写入期间删除的文章不会被重新插入。
+     */
+    private void flushPending() {
+        String batchId = stringRedisTemplate.execute(TAKE_FLUSHING_SCRIPT,
+                List.of(PENDING_KEY, FLUSHING_KEY, FLUSHING_ID_KEY), UUID.randomUUID().toString());
+        if (batchId == null) {
+            return;
+        }
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(FLUSHING_KEY);
+        List<Map.Entry<Object, Object>> list = new ArrayList<>(entries.entrySet());
+        // 所有批次在同一事务中提交，失败重试时不会重复累加已写入的批次
+        Integer updated = transactionTemplate.execute(status -> {
+            try {
+                articleViewMapper.insertFlush(batchId);
+            } catch (DuplicateKeyException e) {
+                // 该批次已由本节点上次或其他节点写入，只需删除哈希
+                return null;
+            }
+            int rows = 0;
+            for (int from = 0; from < list.size(); from += DB_BATCH) {
+                Map<Integer, Long> deltas = new HashMap<>();
+                for (Map.Entry<Object, Object> entry : list.subList(from, Math.min(from + DB_BATCH, list.size()))) {
+                    deltas.put(Integer.valueOf(entry.getKey().toString()), Long.valueOf(entry.getValue().toString()));
+                }
+                rows += articleViewMapper.addViewCounts(deltas);
+            }
+            List<Integer> removed = new ArrayList<>();
+            for (Object articleId : stringRedisTemplate.opsForHash().keys(REMOVED_KEY)) {
+                if (entries.containsKey(articleId)) {
+                    removed.add(Integer.valueOf(articleId.toString()));
+                }
+            }
+            if (!removed.isEmpty()) {
+                articleViewMapper.deleteBatchIds(removed);
+            }
+            return rows;
+        });
+        stringRedisTemplate.execute(FINISH_FLUSHING_SCRIPT, List.of(FLUSHING_KEY, FLUSHING_ID_KEY), batchId);
+        articleViewMapper.deleteFlushesBefore(LocalDateTime.now().minusDays(FLUSH_RETENTION_DAYS));
+        if (updated == null) {
+            log.info("浏览量批次已写入过，跳过, batchId={}", batchId);
+        } else {
+            log.debug("浏览量已写入数据库, batchId={}, 文章数={}, 影响行数={}", batchId, list.size(), updated);
+        }
+    }
+
+    /**
+     * 用数据库中的浏览量和待写入哈希中的增量初始化排行有序集合。
+     * 在持有锁且改名后的哈希已写入数据库后执行，此时两者之和即为总浏览量。
+     */
+    private void seed() {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(FLUSHING_KEY))) {
+            return;
+        }
+        String seedingKey = SEEDING_KEY_PREFIX + UUID.randomUUID();
+        byte[] key = seedingKey.getBytes(StandardCharsets.UTF_8);
+        List<ArticleView> views = articleViewMapper.selectList(new LambdaQueryWrapper<ArticleView>()
+                .gt(ArticleView::getViewCount, 0));
+        for (int from = 0; from < views.size(); from += DB_BATCH) {
+            List<ArticleView> batch = views.subList(from, Math.min(from + DB_BATCH, views.size()));
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (ArticleView view : batch) {
+                    connection.zSetCommands().zAdd(key, view.getViewCount(),
+                            view.getArticleId().toString().getBytes(StandardCharsets.UTF_8));
+                }
+                // 初始化中途失败时临时有序集合自动过期
+                connection.keyCommands().expire(key, Math.max(lockSeconds, 60) * 10);
+                return null;
+            });
+        }
+        stringRedisTemplate.execute(SEED_SCRIPT, List.of(seedingKey, RANK_KEY, PENDING_KEY, SEEDED_KEY, REMOVED_KEY));
+        log.info("浏览量排行已从数据库初始化, 文章数={}", views.size());
+    }
+
+    /**
+     * 删除超过保留天数的删除标记。
+     */
+    private void pruneRemoved() {
+        long before = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(REMOVED_RETENTION_DAYS);
+        List<Object> expired = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : stringRedisTemplate.opsForHash().entries(REMOVED_KEY).entrySet()) {
+            if (Long.parseLong(entry.getValue().toString()) < before) {
+                expired.add(entry.getKey());
+            }
+        }
+        if (!expired.isEmpty()) {
+            stringRedisTemplate.opsForHash().delete(REMOVED_KEY, expired.toArray());
+        }
+    }
+
+    /**
+     * 关闭前停止定时任务，并把内存中的增量写入Redis。
+     */
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flushToRedis();
+        // 上一次调用可能只重试了之前失败的批次，再调用一次写入计数器中剩余的增量
+        if (unsent.isEmpty()) {
+            flushToRedis();
+        }
+    }
+
+    /**
+     * 写入Redis的一批增量。
+     *
+     * @param id     批次ID，重试时不变。
+     * @param deltas 文章ID -> 增量。
+     */
+    private record Batch(String id, Map<Integer, Long> deltas) {
+
+        /**
+         * @return 脚本参数：批次标记过期秒数，之后为文章ID和增量交替排列。
+         */
+        Object[] args(long markerSeconds) {
+            Object[] args = new Object[1 + deltas.size() * 2];
+            args[0] = Long.toString(markerSeconds);
+            int i = 1;
+            for (Map.Entry<Integer, Long> entry : deltas.entrySet()) {
+                args[i++] = entry.getKey().toString();
+                args[i++] = entry.getValue().toString();
+            }
+            return args;
+        }
+    }
+
+}
@@ -1,11 +1,17 @@
 package com.blog.web.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.blog.web.config.cache.CatalogNearCache;
+import com.blog.web.config.search.SuggestionIndex;
 import com.blog.web.entity.Category;
 import com.blog.web.mapper.CategoryMapper;
 import com.blog.web.service.ICategoryService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.List;
+
 /**
  * <p>
  * 分类表 服务实现类
@@ -17,4 +23,47 @@ import org.springframework.stereotype.Service;
 @Service
 public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> implements ICategoryService {
 
+    @Autowired
+    private CatalogNearCache catalogNearCache;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Override
+    public List<Category> listAllCached() {
+        return catalogNearCache.get(CatalogNearCache.CATEGORY, () -> baseMapper.selectList(null));
+    }
+
+    @Override
+    public boolean save(Category entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            catalogNearCache.invalidate(CatalogNearCache.CATEGORY);
+            suggestionIndex.put(SuggestionIndex.CATEGORY, entity.getCategoryId(), entity.getCategoryName());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(Category entity) {
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            catalogNearCache.invalidate(CatalogNearCache.CATEGORY);
+            suggestionIndex.put(SuggestionIndex.CATEGORY, entity.getCategoryId(), entity.getCategoryName());
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed) {
+            catalogNearCache.invalidate(CatalogNearCache.CATEGORY);
+            if (id instanceof Integer categoryId) {
+                suggestionIndex.remove(SuggestionIndex.CATEGORY, categoryId);
+            }
+        }
+        return removed;
+    }
+
 }
@@ -1,11 +1,24 @@
 package com.blog.web.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.blog.web.config.KeysetCursor;
+import com.blog.web.config.cache.CommentTreeCache;
+import com.blog.web.dto.CommentThread;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.Comment;
 import com.blog.web.mapper.CommentMapper;
 import com.blog.web.service.ICommentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * <p>
  * 评论表 服务实现类
@@ -17,4 +30,137 @@ import org.springframework.stereotype.Service;
 @Service
 public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment> implements ICommentService {
 
+    /**
+     * 每条评论附带的回复数量。
+     */
+    @Value("${comment.thread.reply-preview:3}")
+    private int replyPreview;
+
+    @Autowired
+    private CommentTreeCache commentTreeCache;
+
+    @Override
+    public boolean save(Comment entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            commentTreeCache.onAdded(entity);
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(Comment entity) {
+        Comment before = baseMapper.selectById(entity.getCommentId());
+        boolean updated = super.updateById(entity);
+        if (updated && before != null) {
+            // 请求中可能只包含部分字段，重新读取完整的评论
+            Comment after = baseMapper.selectById(entity.getCommentId());
+            if (after != null) {
+                commentTreeCache.onUpdated(before, after);
+            } else {
+                commentTreeCache.invalidate(before.getArticleId());
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        Comment before = baseMapper.selectById(id);
+        boolean removed = super.removeById(id);
+        if (removed && before != null) {
+            // 被删除评论的回复也会从树中消失，直接重建
+            commentTreeCache.invalidate(before.getArticleId());
+        }
+        return removed;
+    }
+
+    @Override
+    public CursorPage<Comment> pageByCursor(String cursor, Integer pageSize) {
+        int size = KeysetCursor.clampPageSize(pageSize);
+        List<Comment> rows = baseMapper.selectList(KeysetCursor.seek(new LambdaQueryWrapper<>(), KeysetCursor.decode(cursor),
+                Comment::getCreatedAt, Comment::getCommentId, size));
+        return CursorPage.of(rows, size, row -> KeysetCursor.encode(row.getCreatedAt(), row.getCommentId()));
+    }
+
+    @Override
+    public CursorPage<CommentThread> pageThreads(Integer articleId, String cursor, Integer pageSize) {
+        int size = KeysetCursor.clampPageSize(pageSize);
+        LambdaQueryWrapper<Comment> wrapper = new LambdaQueryWrapper<Comment>()
+                .eq(Comment::getArticleId, articleId)
+                .eq(Comment::getParentId, 0);
+        List<Comment> rows = baseMapper.selectList(KeysetCursor.seek(wrapper, KeysetCursor.decode(cursor),
+                Comment::getCreatedAt, Comment::getCommentId, size));
+        return toThreadPage(CursorPage.of(rows, size, row -> KeysetCursor.encode(row.getCreatedAt(), row.getCommentId())));
+    }
+
+    @Override
+    public CursorPage<CommentThread> pageReplies(Integer parentId, String cursor, Integer pageSize) {
+        int size = KeysetCursor.clampPageSize(pageSize);
+        LambdaQueryWrapper<Comment> wrapper = new LambdaQueryWrapper<Comment>().eq(Comment::getParentId, parentId);
+        List<Comment> rows = baseMapper.selectList(KeysetCursor.seekAscending(wrapper, KeysetCursor.decode(cursor),
+                Comment::getCreatedAt, Comment::getCommentId, size));
+        return toThreadPage(CursorPage.of(rows, size, row -> KeysetCursor.encode(row.getCreatedAt(), row.getCommentId())));
+    }
+
+    private CursorPage<CommentThread> toThreadPage(CursorPage<Comment> page) {
+        return new CursorPage<>(toThreads(page.getRows()), page.getNextCursor(), page.isHasMore());
+    }
+
+    /**
+     * 为一页评论补充回复数和前几条回复。
+     * <p>
+     * 无论讨论有多大，每页固定最多三条SQL：当前页的回复数、当前页的前几条回复、这些回复各自的回复数。
+     */
+    private List<CommentThread> toThreads(List<Comment> comments) {
+        List<CommentThread> threads = new ArrayList<>(comments.size());
+        if (comments.isEmpty()) {
+            return threads;
+        }
+        List<Integer> ids = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            ids.add(comment.getCommentId());
+        }
+        Map<Integer, Integer> replyCounts = countReplies(ids);
+
+        Map<Integer, List<Comment>> previews = new HashMap<>();
+        List<Integer> previewIds = new ArrayList<>();
+        if (replyPreview > 0 && !replyCounts.isEmpty()) {
+            for (Comment reply : baseMapper.selectReplyPreview(replyCounts.keySet(), replyPreview)) {
+                previews.computeIfAbsent(reply.getParentId(), k -> new ArrayList<>(replyPreview)).add(reply);
+                previewIds.add(reply.getCommentId());
+            }
+        }
+        Map<Integer, Integer> previewReplyCounts = previewIds.isEmpty() ? Map.of() : countReplies(previewIds);
+
+        for (Comment comment : comments) {
+            CommentThread thread = new CommentThread(comment);
+            thread.setReplyCount(replyCounts.getOrDefault(comment.getCommentId(), 0));
+            List<Comment> replies = previews.get(comment.getCommentId());
+            if (replies != null) {
+                List<CommentThread> replyThreads = new ArrayList<>(replies.size());
+                for (Comment reply : replies) {
+                    CommentThread replyThread = new CommentThread(reply);
+                    replyThread.setReplyCount(previewReplyCounts.getOrDefault(reply.getCommentId(), 0));
+                    replyThreads.add(replyThread);
+                }
+                thread.setReplies(replyThreads);
+                if (thread.getReplyCount() > replies.size()) {
+                    Comment last = replies.get(replies.size() - 1);
+                    thread.setReplyCursor(KeysetCursor.encode(last.getCreatedAt(), last.getCommentId()));
+                }
+            }
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    private Map<Integer, Integer> countReplies(List<Integer> parentIds) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Map<String, Object> row : baseMapper.countReplies(parentIds)) {
+            counts.put(((Number) row.get("parentId")).intValue(), ((Number) row.get("replyCount")).intValue());
+        }
+        return counts;
+    }
+
 }
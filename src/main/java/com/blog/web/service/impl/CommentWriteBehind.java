@@ -0,0 +1,446 @@
+package com.blog.web.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.blog.web.config.cache.CommentTreeCache;
+import com.blog.web.entity.Article;
+import com.blog.web.entity.Comment;
+import com.blog.web.mapper.ArticleMapper;
+import com.blog.web.mapper.CommentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 评论的延迟批量写入（write-behind），默认关闭。
+ * <p>
+ * 开启后新评论先按数据库的约束校验（非空字段、列长度、文章是否存在），不合法的评论直接拒绝；
+ * 校验通过后进入内存队列并立即返回临时ID（负数），后台线程攒够一批或等待超过刷新间隔后，
+ * 用一条多行INSERT写入数据库，写入成功后才加入评论树缓存。队列已满时退化为同步写入，同步写入失败时告知调用方。
+ * <p>
+ * 多行INSERT因数据问题失败时逐条重试，仍然失败的评论追加到溢出文件；数据库不可用时整批写入溢出文件。
+ * 后台线程按固定间隔（以及每次启动时）逐条重放溢出文件，已写入的评论按内容跳过，
+ * 数据本身有问题的评论移入隔离文件等待人工处理，其余评论保留到下次重放。
+ * 应用正常关闭时把队列中剩余的评论写入数据库，进程被强制结束时队列中的评论会丢失。
+ */
+@Slf4j
+@Service
+public class CommentWriteBehind {
+
+    /**
+     * comment_ip 列的长度。
+     */
+    private static final int MAX_IP_LENGTH = 15;
+
+    /**
+     * comment_content 列（TEXT）的最大字节数。
+     */
+    private static final int MAX_CONTENT_BYTES = 65535;
+
+    @Value("${comment.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${comment.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Value("${comment.write-behind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${comment.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${comment.write-behind.spill-file:data/comment-write-behind.jsonl}")
+    private String spillFile;
+
+    /**
+     * 重放溢出文件的间隔。
+     */
+    @Value("${comment.write-behind.replay-interval-ms:60000}")
+    private long replayIntervalMs;
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private CommentTreeCache commentTreeCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 临时ID生成器，从-1开始递减，不会与数据库自增ID冲突。
+     */
+    private final AtomicInteger provisionalIds = new AtomicInteger();
+
+    private BlockingQueue<Comment> pending;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    private Timer flushTimer;
+
+    private Counter spilledCounter;
+
+    private Counter quarantinedCounter;
+
+    /**
+     * 下次重放溢出文件的时间（System.nanoTime）。
+     */
+    private long nextReplay;
+
+    @PostConstruct
+    public void init() {
+        // 即使当前未开启，也要写入之前遗留的溢出文件
+        replaySpillFile();
+        if (!enabled) {
+            return;
+        }
+        pending = new LinkedBlockingQueue<>(queueCapacity);
+        Gauge.builder("comment.write_behind.queue.size", pending, BlockingQueue::size)
+                .description("等待批量写入的评论数")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("comment.write_behind.flush")
+                .description("批量写入评论的耗时")
+                .register(meterRegistry);
+        spilledCounter = Counter.builder("comment.write_behind.spilled")
+                .description("写入溢出文件的评论数")
+                .register(meterRegistry);
+        quarantinedCounter = Counter.builder("comment.write_behind.quarantined")
+                .description("无法写入而移入隔离文件的评论数")
+                .register(meterRegistry);
+        nextReplay = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replayIntervalMs);
+        running = true;
+        writer = new Thread(this::writeLoop, "comment-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(5000);
+        // 关闭前把剩余的评论写入数据库，失败时写入溢出文件
+        List<Comment> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * @return 是否开启了延迟批量写入。
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 校验并接收评论，设置ID。入队的是评论的副本，传入的对象可以直接返回给客户端。
+     * <p>
+     * 创建时间截断到秒，与数据库中保存的精度一致，重放溢出文件时据此判断评论是否已写入。
+     *
+     * @param comment 待保存的评论。
+     * @return 进入队列（ID为临时ID）或同步写入成功（ID为数据库ID）时返回true；
+     * 队列已满且同步写入失败时返回false，评论没有保存。
+     * @throws IllegalArgumentException 如果评论不满足数据库的约束，评论没有保存。
+     */
+    public boolean submit(Comment comment) {
+        if (comment.getCreatedAt() != null) {
+            comment.setCreatedAt(comment.getCreatedAt().truncatedTo(ChronoUnit.SECONDS));
+        }
+        validate(comment);
+        Comment queued = new Comment();
+        BeanUtils.copyProperties(comment, queued);
+        queued.setCommentId(null);
+        if (pending.offer(queued)) {
+            comment.setCommentId(provisionalIds.decrementAndGet());
+            return true;
+        }
+        // 队列已满，同步写入；失败时不写入溢出文件，由客户端重试，避免重试后重复保存
+        try {
+            insertBatch(List.of(queued));
+        } catch (Exception e) {
+            log.error("写入评论失败", e);
+            return false;
+        }
+        comment.setCommentId(queued.getCommentId());
+        return true;
+    }
+
+    /**
+     * 检查同步写入时由数据库保证的约束：非空字段、列长度以及评论的文章是否存在。
+     *
+     * @param comment 评论。
+     * @throws IllegalArgumentException 如果评论不能保存。
+     */
+    private void validate(Comment comment) {
+        if (comment.getArticleId() == null || comment.getUserId() == null || comment.getParentId() == null
+                || comment.getCreatedAt() == null) {
+            throw new IllegalArgumentException("评论信息不完整");
+        }
+        if (comment.getCommentContent() == null) {
+            throw new IllegalArgumentException("评论内容不能为空");
+        }
+        if (comment.getCommentContent().getBytes(StandardCharsets.UTF_8).length > MAX_CONTENT_BYTES) {
+            throw new IllegalArgumentException("评论内容过长");
+        }
+        if (comment.getCommentIp() == null || comment.getCommentIp().length() > MAX_IP_LENGTH) {
+            throw new IllegalArgumentException("无法识别评论者的IP地址");
+        }
+        if (!articleMapper.exists(new LambdaQueryWrapper<Article>().eq(Article::getArticleId, comment.getArticleId()))) {
+            throw new IllegalArgumentException("文章不存在");
+        }
+    }
+
+    /**
+     * 后台写入循环：等待第一条评论，然后继续收集，直到凑满一批或超过刷新间隔；空闲时按间隔重放溢出文件。
+     */
+    private void writeLoop() {
+        while (running) {
+            List<Comment> batch = new ArrayList<>(batchSize);
+            try {
+                replaySpillFileIfDue();
+                Comment first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    pending.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Comment next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 已取出的评论不能丢弃
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 写入一批评论。
+     * <p>
+     * 多行INSERT是一条语句，任何一行违反约束都会使整批失败，此时逐条重试，只把仍然失败的评论写入溢出文件，
+     * 不影响同一批中其他用户的评论；其他原因（如数据库不可用）的失败直接把整批写入溢出文件，由定时重放处理。
+     */
+    private void flush(List<Comment> batch) {
+        try {
+            insertBatch(batch);
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("批量写入评论失败, 数量={}，逐条重试", batch.size(), e);
+        } catch (Exception e) {
+            log.error("批量写入评论失败, 数量={}，写入溢出文件", batch.size(), e);
+            spill(batch);
+            return;
+        }
+        List<Comment> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Comment comment = batch.get(i);
+            try {
+                insertIfAbsent(comment);
+            } catch (DataIntegrityViolationException e) {
+                log.error("写入评论失败: {}", comment, e);
+                failed.add(comment);
+            } catch (Exception e) {
+                log.error("写入评论失败，剩余 {} 条评论写入溢出文件", batch.size() - i, e);
+                failed.addAll(batch.subList(i, batch.size()));
+                break;
+            }
+        }
+        if (!failed.isEmpty()) {
+            spill(failed);
+        }
+    }
+
+    /**
+     * 用一条多行INSERT写入一批评论，成功后加入评论树缓存。
+     */
+    private void insertBatch(List<Comment> batch) {
+        long start = System.nanoTime();
+        try {
+            commentMapper.insertBatch(batch);
+        } finally {
+            if (flushTimer != null) {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        for (Comment comment : batch) {
+            commentTreeCache.onAdded(comment);
+        }
+    }
+
+    /**
+     * 写入一条评论，数据库中已有相同的评论（文章、用户、父评论、创建时间和内容都相同）时跳过，
+     * 因此重复重放同一条评论不会保存两次。
+     *
+     * @return 是否写入了数据库。
+     */
+    private boolean insertIfAbsent(Comment comment) {
+        boolean exists = commentMapper.exists(new LambdaQueryWrapper<Comment>()
+                .eq(Comment::getArticleId, comment.getArticleId())
+                .eq(Comment::getUserId, comment.getUserId())
+                .eq(Comment::getParentId, comment.getParentId())
+                .eq(Comment::getCreatedAt, comment.getCreatedAt())
+                .eq(Comment::getCommentContent, comment.getCommentContent()));
+        if (exists) {
+            return false;
+        }
+        commentMapper.insert(comment);
+        commentTreeCache.onAdded(comment);
+        return true;
+    }
+
+    /**
+     * 以每行一条JSON的形式追加到溢出文件。
+     */
+    private synchronized void spill(List<Comment> batch) {
+        List<String> lines = new ArrayList<>(batch.size());
+        try {
+            for (Comment comment : batch) {
+                comment.setCommentId(null);
+                lines.add(objectMapper.writeValueAsString(comment));
+            }
+            append(Paths.get(spillFile), lines);
+            if (spilledCounter != null) {
+                spilledCounter.increment(batch.size());
+            }
+        } catch (IOException e) {
+            log.error("写入评论溢出文件失败，以下评论已丢失: {}", batch, e);
+        }
+    }
+
+    private void replaySpillFileIfDue() {
+        long now = System.nanoTime();
+        if (now - nextReplay < 0) {
+            return;
+        }
+        nextReplay = now + TimeUnit.MILLISECONDS.toNanos(replayIntervalMs);
+        replaySpillFile();
+    }
+
+    /**
+     * 逐条重放溢出文件中的评论，每条评论单独提交，一条失败不影响其他评论。
+     * <p>
+     * 重放前把文件改名为 {@code .replaying}，重放期间新溢出的评论写入新的文件。
+     * 无法解析或违反约束的评论移入 {@code .quarantine} 文件，等待人工处理；
+     * 其他原因失败的评论追加回溢出文件，下次重放时再试。处理完成后删除改名后的文件。
+     * 进程在重放中途退出时，下次从遗留的 {@code .replaying} 文件继续，已写入的评论会被跳过。
+     */
+    private synchronized void replaySpillFile() {
+        Path path = Paths.get(spillFile);
+        Path replaying = path.resolveSibling(path.getFileName() + ".replaying");
+        Path quarantine = path.resolveSibling(path.getFileName() + ".quarantine");
+        List<String> lines;
+        try {
+            if (!Files.exists(replaying)) {
+                if (!Files.exists(path)) {
+                    return;
+                }
+                Files.move(path, replaying, StandardCopyOption.ATOMIC_MOVE);
+            }
+            lines = Files.readAllLines(replaying, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("读取评论溢出文件失败: {}", path, e);
+            return;
+        }
+        int saved = 0;
+        List<String> retry = new ArrayList<>();
+        List<String> quarantined = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (!retry.isEmpty()) {
+                // 数据库不可用，剩余的评论不再尝试
+                retry.add(line);
+                continue;
+            }
+            try {
+                Comment comment = objectMapper.readValue(line, Comment.class);
+                validate(comment);
+                if (insertIfAbsent(comment)) {
+                    saved++;
+                }
+            } catch (IOException | IllegalArgumentException | DataIntegrityViolationException e) {
+                log.error("溢出文件中的评论无法写入，移入隔离文件: {}", line, e);
+                quarantined.add(line);
+            } catch (Exception e) {
+                log.error("从溢出文件写入评论失败，下次重放时重试", e);
+                retry.add(line);
+            }
+        }
+        try {
+            append(quarantine, quarantined);
+            append(path, retry);
+            Files.delete(replaying);
+        } catch (IOException e) {
+            log.error("更新评论溢出文件失败: {}", replaying, e);
+            return;
+        }
+        if (quarantinedCounter != null) {
+            quarantinedCounter.increment(quarantined.size());
+        }
+        log.info("已从溢出文件写入 {} 条评论，{} 条等待重试，{} 条移入隔离文件 {}", saved, retry.size(),
+                quarantined.size(), quarantine);
+    }
+
+    private static void append(Path path, List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+}
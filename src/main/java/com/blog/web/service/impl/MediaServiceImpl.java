@@ -1,10 +1,45 @@
 package com.blog.web.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.blog.web.config.cache.MediaBytesCache;
+import com.blog.web.dto.MediaManifestItem;
 import com.blog.web.entity.Media;
+import com.blog.web.entity.MediaBlob;
+import com.blog.web.mapper.MediaBlobMapper;
 import com.blog.web.mapper.MediaMapper;
 import com.blog.web.service.IMediaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * <p>
@@ -14,7 +49,224 @@ import org.springframework.stereotype.Service;
  * @author 苍晖
  * @since 2024-07-01
  */
+@Slf4j
 @Service
 public class MediaServiceImpl extends ServiceImpl<MediaMapper, Media> implements IMediaService {
 
+    /**
+     * 打包时每次查询的媒体数量。
+     */
+    private static final int ARCHIVE_BATCH = 500;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    @Qualifier("mediaIoExecutor")
+    private ThreadPoolTaskExecutor mediaIoExecutor;
+
+    @Autowired
+    private MediaBlobMapper mediaBlobMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MediaVariantGenerator mediaVariantGenerator;
+
+    @Autowired
+    private MediaBytesCache mediaBytesCache;
+
+    @Override
+    public CompletableFuture<Media> upload(MultipartFile file, String mediaName) {
+        return CompletableFuture.supplyAsync(() -> {
+            MediaStorage.StagedFile staged;
+            try (InputStream in = file.getInputStream()) {
+                staged = mediaStorage.stage(in, file.getOriginalFilename());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Media media;
+            try {
+                media = transactionTemplate.execute(status -> saveStaged(staged, mediaName));
+            } finally {
+                // 内容已存在时临时文件没有被使用
+                mediaStorage.discard(staged);
+            }
+            if (media.getMediaVariants() == null) {
+                // 事务提交后再生成缩略图，生成结果按哈希写回
+                mediaVariantGenerator.submit(media.getMediaHash(), Paths.get(media.getMediaPath()));
+            }
+            return media;
+        }, mediaIoExecutor);
+    }
+
+    /**
+     * 在事务中登记内容引用并保存媒体记录。
+     * <p>
+     * acquire 之后内容记录在事务结束前保持行锁，与删除最后一个引用的事务互斥，
+     * 因此文件是否存在的判断和写入不会与删除交错；内容已存在时只插入一条媒体记录。
+     */
+    private Media saveStaged(MediaStorage.StagedFile staged, String mediaName) {
+        mediaBlobMapper.acquire(staged.sha256(), mediaStorage.blobPath(staged.sha256(), staged.extension()).toString(), staged.size());
+        MediaBlob blob = mediaBlobMapper.selectById(staged.sha256());
+        Path target = Paths.get(blob.getBlobPath());
+        try {
+            if (!Files.exists(target)) {
+                mediaStorage.commit(staged, target);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("媒体内容已登记, hash={}, size={}, refCount={}", blob.getBlobHash(), blob.getBlobSize(), blob.getRefCount());
+
+        Media media = new Media();
+        media.setMediaName(mediaName);
+        media.setMediaPath(blob.getBlobPath());
+        media.setMediaHash(blob.getBlobHash());
+        media.setMediaSize(blob.getBlobSize());
+        if (blob.getRefCount() > 1) {
+            // 相同内容已有缩略图时直接沿用
+            Media sibling = getOne(new LambdaQueryWrapper<Media>()
+                    .select(Media::getMediaVariants)
+                    .eq(Media::getMediaHash, blob.getBlobHash())
+                    .isNotNull(Media::getMediaVariants)
+                    .last("LIMIT 1"), false);
+            if (sibling != null) {
+                media.setMediaVariants(sibling.getMediaVariants());
+            }
+        }
+        if (!save(media)) {
+            throw new IllegalStateException("保存媒体记录失败");
+        }
+        return media;
+    }
+
+    @Override
+    public boolean removeMedia(Media media) {
+        Boolean removed = transactionTemplate.execute(status -> {
+            if (baseMapper.deleteById(media.getMediaId()) == 0) {
+                return false;
+            }
+            try {
+                if (media.getMediaHash() == null) {
+                    // 内容寻址之前上传的文件，没有引用记录
+                    Path path = Paths.get(media.getMediaPath());
+                    Files.deleteIfExists(path);
+                    mediaBytesCache.invalidate(path);
+                    return true;
+                }
+                mediaBlobMapper.release(media.getMediaHash());
+                MediaBlob blob = mediaBlobMapper.selectById(media.getMediaHash());
+                if (blob != null && blob.getRefCount() <= 0) {
+                    // 最后一个引用：持有行锁时删除文件，同一内容的上传会等待本事务结束后重新写入
+                    mediaBlobMapper.deleteById(blob.getBlobHash());
+                    Path path = Paths.get(blob.getBlobPath());
+                    mediaStorage.deleteVariants(path);
+                    Files.deleteIfExists(path);
+                    mediaBytesCache.invalidate(path);
+                    for (int width : mediaStorage.variantWidths()) {
+                        mediaBytesCache.invalidate(mediaStorage.variantPath(path, width));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(removed);
+    }
+
+    @Override
+    public IPage<MediaManifestItem> pageManifest(Page<Media> page) {
+        page(page, new LambdaQueryWrapper<Media>().orderByAsc(Media::getMediaId));
+        return page.convert(this::toManifestItem);
+    }
+
+    @Override
+    public void writeArchive(OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // 图片本身已经压缩过，不再压缩，只做打包
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        Integer lastId = 0;
+        while (true) {
+            List<Media> batch = list(new LambdaQueryWrapper<Media>()
+                    .gt(Media::getMediaId, lastId)
+                    .orderByAsc(Media::getMediaId)
+                    .last("LIMIT " + ARCHIVE_BATCH));
+            for (Media media : batch) {
+                Path path = toPath(media.getMediaPath());
+                if (path == null || !Files.isRegularFile(path)) {
+                    log.warn("打包时跳过不存在的媒体文件, mediaId={}, path={}", media.getMediaId(), media.getMediaPath());
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(media.getMediaId() + "_" + path.getFileName()));
+                Files.copy(path, zip);
+                zip.closeEntry();
+            }
+            if (batch.size() < ARCHIVE_BATCH) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getMediaId();
+        }
+        zip.finish();
+    }
+
+    private MediaManifestItem toManifestItem(Media media) {
+        MediaManifestItem item = new MediaManifestItem();
+        item.setMediaId(media.getMediaId());
+        item.setMediaName(media.getMediaName());
+        item.setUrl("/api/media/getmedia?mediaPath=" + URLEncoder.encode(media.getMediaPath(), StandardCharsets.UTF_8));
+        item.setVariants(parseVariants(media.getMediaVariants()));
+        Path path = toPath(media.getMediaPath());
+        if (path == null || !Files.isRegularFile(path)) {
+            return item;
+        }
+        try {
+            item.setSize(media.getMediaSize() != null ? media.getMediaSize() : Files.size(path));
+            readDimensions(path, item);
+        } catch (IOException e) {
+            log.warn("读取媒体文件信息失败, mediaId={}", media.getMediaId(), e);
+        }
+        return item;
+    }
+
+    /**
+     * 只读取图片头部获取宽高，不解码像素。
+     */
+    private void readDimensions(Path path, MediaManifestItem item) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            if (in == null) {
+                return;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                item.setWidth(reader.getWidth(0));
+                item.setHeight(reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static List<Integer> parseVariants(String mediaVariants) {
+        if (mediaVariants == null || mediaVariants.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(mediaVariants.split(",")).map(Integer::valueOf).toList();
+    }
+
+    private static Path toPath(String mediaPath) {
+        try {
+            return mediaPath != null ? Paths.get(mediaPath) : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
 }
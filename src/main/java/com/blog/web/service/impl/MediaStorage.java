@@ -0,0 +1,261 @@
+package com.blog.web.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.blog.web.entity.Media;
+import com.blog.web.mapper.MediaMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上传目录下媒体文件的存储，按内容寻址。
+ * <p>
+ * 写入分两步：{@link #stage} 从输入流直接复制到上传目录下的临时文件，同时计算SHA-256；
+ * {@link #commit} 把临时文件原子重命名为按哈希分片的路径 {@code 根目录/ab/cd/<哈希>.<扩展名>}，
+ * 读取方不会看到写了一半的文件。相同内容只保存一份，是否需要写入由调用方根据引用记录决定。
+ * <p>
+ * 缩略图与原文件放在同一目录，文件名为 {@code <哈希>_w<宽度>.<扩展名>}。
+ * <p>
+ * 上传目录同时也是临时文件和Tomcat上传缓冲文件所在的目录，读取时只接受上述两种文件名，
+ * 以及按内容寻址之前上传、在 media 表中登记过的路径。
+ */
+@Service
+public class MediaStorage {
+
+    /**
+     * 原文件和缩略图的文件名：哈希、可选的宽度后缀、可选的扩展名。
+     */
+    private static final Pattern STORED_NAME = Pattern.compile("([0-9a-f]{64})(_w\\d+)?(\\.[\\p{L}\\p{N}]{1,10})?");
+
+    @Value("${spring.servlet.multipart.location}")
+    private String uploadPath;
+
+    /**
+     * 缩略图的宽度（像素），从小到大。
+     */
+    @Value("${media.variants.widths:160,480,1280}")
+    private int[] variantWidths;
+
+    @Autowired
+    private MediaMapper mediaMapper;
+
+    @PostConstruct
+    public void init() {
+        Arrays.sort(variantWidths);
+    }
+
+    /**
+     * 已写入临时文件、尚未提交的上传。
+     *
+     * @param temp      临时文件。
+     * @param sha256    文件内容的SHA-256（十六进制小写）。
+     * @param size      文件大小（字节）。
+     * @param extension 原始文件名的扩展名（含点，小写），没有扩展名时为空字符串。
+     */
+    public record StagedFile(Path temp, String sha256, long size, String extension) {
+    }
+
+    /**
+     * 将输入流写入上传目录下的临时文件。
+     *
+     * @param in       输入流，方法结束后不会关闭。
+     * @param filename 原始文件名，只用于取扩展名。
+     * @return 临时文件信息，使用后需调用 {@link #discard} 清理。
+     * @throws IOException 如果写入失败，临时文件会被删除。
+     */
+    public StagedFile stage(InputStream in, String filename) throws IOException {
+        Path root = root();
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, ".upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream digestIn = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = digestIn.transferTo(out);
+            }
+            return new StagedFile(temp, HexFormat.of().formatHex(digest.digest()), size, extension(filename));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * 内容的存储路径：按哈希前两级分片，避免单个目录下文件过多。
+     *
+     * @param sha256    文件内容的SHA-256。
+     * @param extension 扩展名（含点）。
+     * @return 存储路径。
+     */
+    public Path blobPath(String sha256, String extension) {
+        return root().resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256 + extension);
+    }
+
+    /**
+     * 将临时文件原子重命名为目标路径。
+     *
+     * @param staged 临时文件。
+     * @param target 目标路径，通常为 {@link #blobPath} 的结果。
+     * @throws IOException 如果移动失败。
+     */
+    public void commit(StagedFile staged, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged.temp(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(staged.temp(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 删除未提交的临时文件，已提交时不做任何事。
+     *
+     * @param staged 临时文件。
+     */
+    public void discard(StagedFile staged) {
+        try {
+            Files.deleteIfExists(staged.temp());
+        } catch (IOException ignored) {
+            // 临时文件以点开头，残留时不影响使用
+        }
+    }
+
+    /**
+     * 将媒体路径解析为上传目录下已保存的媒体文件。
+     *
+     * @param mediaPath 媒体文件路径。
+     * @return 文件路径；如果不在上传目录下、不是已保存的媒体文件或不是普通文件，返回null。
+     */
+    public Path resolve(String mediaPath) {
+        if (mediaPath == null) {
+            return null;
+        }
+        try {
+            Path path = Paths.get(mediaPath).toAbsolutePath().normalize();
+            if (!path.startsWith(root()) || !isStored(path, mediaPath) || !Files.isRegularFile(path)) {
+                return null;
+            }
+            return path;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 是否为已保存的媒体文件：按哈希分片目录下的原文件或缩略图，或media表中登记过的旧路径。
+     * 临时文件（{@code .upload-*.tmp}）和Tomcat的上传缓冲文件都不满足。
+     */
+    private boolean isStored(Path path, String mediaPath) {
+        Matcher matcher = STORED_NAME.matcher(path.getFileName().toString());
+        if (matcher.matches()) {
+            return path.getParent().equals(blobPath(matcher.group(1), "").getParent());
+        }
+        return mediaMapper.exists(new LambdaQueryWrapper<Media>().eq(Media::getMediaPath, mediaPath));
+    }
+
+    /**
+     * @return 缩略图的宽度列表，从小到大。
+     */
+    public int[] variantWidths() {
+        return variantWidths.clone();
+    }
+
+    /**
+     * 原文件对应宽度的缩略图路径。
+     *
+     * @param original 原文件路径。
+     * @param width    缩略图宽度。
+     * @return 缩略图路径（文件不一定存在）。
+     */
+    public Path variantPath(Path original, int width) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String variant = dot < 0
+                ? name + "_w" + width
+                : name.substring(0, dot) + "_w" + width + name.substring(dot);
+        return original.resolveSibling(variant);
+    }
+
+    /**
+     * 选择不小于请求宽度的最小缩略图；没有合适的缩略图或缩略图尚未生成时返回原文件。
+     *
+     * @param original 原文件路径。
+     * @param width    请求的宽度，为null时返回原文件。
+     * @return 要返回给客户端的文件路径。
+     */
+    public Path selectVariant(Path original, Integer width) {
+        if (width == null || width <= 0) {
+            return original;
+        }
+        for (int variantWidth : variantWidths) {
+            if (variantWidth >= width) {
+                Path variant = variantPath(original, variantWidth);
+                return Files.isRegularFile(variant) ? variant : original;
+            }
+        }
+        return original;
+    }
+
+    /**
+     * 删除原文件的所有缩略图。
+     *
+     * @param original 原文件路径。
+     * @throws IOException 如果删除失败。
+     */
+    public void deleteVariants(Path original) throws IOException {
+        for (int width : variantWidths) {
+            Files.deleteIfExists(variantPath(original, width));
+        }
+    }
+
+    private Path root() {
+        return Paths.get(uploadPath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 取原始文件名的扩展名，只保留字母和数字，用于存储路径和内容类型判断。
+     */
+    private static String extension(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1) {
+            return "";
+        }
+        String extension = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        if (extension.length() > 10 || !extension.chars().allMatch(Character::isLetterOrDigit)) {
+            return "";
+        }
+        return "." + extension;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
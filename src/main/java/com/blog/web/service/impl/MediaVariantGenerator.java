@@ -0,0 +1,209 @@
+package com.blog.web.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.blog.web.entity.Media;
+import com.blog.web.mapper.MediaMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 上传后在后台生成图片缩略图。
+ * <p>
+ * 任务在有界的 {@code mediaVariantExecutor} 线程池中执行，队列已满时放弃生成，
+ * 此时 {@code media_variants} 保持为null，读取时返回原图。只生成比原图窄的宽度，
+ * 解码时按需降采样，缩放时逐级减半，避免大图占用过多内存和CPU。
+ * 生成完成后把宽度列表写入同一内容的所有媒体记录。
+ */
+@Slf4j
+@Service
+public class MediaVariantGenerator {
+
+    @Value("${media.variants.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 原图像素数上限，超过的图片不生成缩略图。
+     */
+    @Value("${media.variants.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaMapper mediaMapper;
+
+    @Autowired
+    @Qualifier("mediaVariantExecutor")
+    private ThreadPoolTaskExecutor mediaVariantExecutor;
+
+    /**
+     * 提交缩略图生成任务，不等待结果。
+     *
+     * @param mediaHash 文件内容SHA-256。
+     * @param original  原文件路径。
+     */
+    public void submit(String mediaHash, Path original) {
+        if (!enabled || mediaHash == null) {
+            return;
+        }
+        try {
+            mediaVariantExecutor.execute(() -> generate(mediaHash, original));
+        } catch (RejectedExecutionException e) {
+            log.warn("缩略图队列已满，跳过生成, hash={}", mediaHash);
+        }
+    }
+
+    private void generate(String mediaHash, Path original) {
+        try {
+            String variants = writeVariants(original);
+            if (!Files.exists(original)) {
+                // 生成期间最后一个引用已被删除
+                mediaStorage.deleteVariants(original);
+                return;
+            }
+            mediaMapper.update(null, new LambdaUpdateWrapper<Media>()
+                    .set(Media::getMediaVariants, variants)
+                    .eq(Media::getMediaHash, mediaHash));
+            log.debug("缩略图已生成, hash={}, widths={}", mediaHash, variants);
+        } catch (IOException | RuntimeException e) {
+            log.warn("生成缩略图失败, hash={}", mediaHash, e);
+        }
+    }
+
+    /**
+     * 生成缩略图文件。
+     *
+     * @return 已生成的宽度，逗号分隔；不是可识别的图片或无需生成时返回空字符串。
+     */
+    private String writeVariants(Path original) throws IOException {
+        StringJoiner generated = new StringJoiner(",");
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null) {
+                return "";
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return "";
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.info("图片像素数超过上限，不生成缩略图, path={}, {}x{}", original, width, height);
+                    return "";
+                }
+                int[] widths = mediaStorage.variantWidths();
+                int largest = 0;
+                for (int variantWidth : widths) {
+                    if (variantWidth < width) {
+                        largest = variantWidth;
+                    }
+                }
+                if (largest == 0) {
+                    return "";
+                }
+                // 解码时隔行隔列采样，只保留最大缩略图两倍的分辨率
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, width / (2 * largest));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage source = reader.read(0, param);
+                String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+
+                // 从大到小生成，每个尺寸在上一个尺寸的基础上缩放
+                BufferedImage current = source;
+                for (int i = widths.length - 1; i >= 0; i--) {
+                    if (widths[i] >= width) {
+                        continue;
+                    }
+                    current = scale(current, widths[i], hasAlpha(format));
+                    Path target = mediaStorage.variantPath(original, widths[i]);
+                    if (!Files.exists(target)) {
+                        write(current, format, target);
+                    }
+                }
+                for (int variantWidth : widths) {
+                    if (variantWidth < width) {
+                        generated.add(String.valueOf(variantWidth));
+                    }
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+        return generated.toString();
+    }
+
+    /**
+     * 逐级减半缩放到目标宽度，每一步使用双线性插值，避免一次缩放过多产生锯齿。
+     */
+    private static BufferedImage scale(BufferedImage image, int targetWidth, boolean alpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth);
+        return current;
+    }
+
+    /**
+     * JPEG和BMP不支持透明通道，写入前需要是RGB图像。
+     */
+    private static boolean hasAlpha(String format) {
+        return format.equals("png") || format.equals("gif");
+    }
+
+    /**
+     * 写入临时文件后原子重命名，读取方不会看到写了一半的缩略图。
+     */
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            if (!ImageIO.write(image, format, temp.toFile())) {
+                throw new IOException("不支持写入的图片格式: " + format);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+}
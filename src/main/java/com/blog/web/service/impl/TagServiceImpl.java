@@ -1,11 +1,17 @@
 package com.blog.web.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.blog.web.config.cache.CatalogNearCache;
+import com.blog.web.config.search.SuggestionIndex;
 import com.blog.web.entity.Tag;
 import com.blog.web.mapper.TagMapper;
 import com.blog.web.service.ITagService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.Serializable;
+import java.util.List;
+
 /**
  * <p>
  * 标签表 服务实现类
@@ -17,4 +23,47 @@ import org.springframework.stereotype.Service;
 @Service
 public class TagServiceImpl extends ServiceImpl<TagMapper, Tag> implements ITagService {
 
+    @Autowired
+    private CatalogNearCache catalogNearCache;
+
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Override
+    public List<Tag> listAllCached() {
+        return catalogNearCache.get(CatalogNearCache.TAG, () -> baseMapper.selectList(null));
+    }
+
+    @Override
+    public boolean save(Tag entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            catalogNearCache.invalidate(CatalogNearCache.TAG);
+            suggestionIndex.put(SuggestionIndex.TAG, entity.getTagId(), entity.getTagName());
+        }
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(Tag entity) {
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            catalogNearCache.invalidate(CatalogNearCache.TAG);
+            suggestionIndex.put(SuggestionIndex.TAG, entity.getTagId(), entity.getTagName());
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (removed) {
+            catalogNearCache.invalidate(CatalogNearCache.TAG);
+            if (id instanceof Integer tagId) {
+                suggestionIndex.remove(SuggestionIndex.TAG, tagId);
+            }
+        }
+        return removed;
+    }
+
 }
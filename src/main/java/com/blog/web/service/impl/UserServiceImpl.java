@@ -1,11 +1,16 @@
 package com.blog.web.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.blog.web.config.KeysetCursor;
+import com.blog.web.dto.CursorPage;
 import com.blog.web.entity.User;
 import com.blog.web.mapper.UserMapper;
 import com.blog.web.service.IUserService;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * <p>
  * 用户表 服务实现类
@@ -17,4 +22,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IUserService {
 
+    @Override
+    public CursorPage<User> pageByCursor(String cursor, Integer pageSize) {
+        int size = KeysetCursor.clampPageSize(pageSize);
+        List<User> rows = baseMapper.selectList(KeysetCursor.seek(new LambdaQueryWrapper<>(), KeysetCursor.decode(cursor),
+                User::getCreatedAt, User::getUserId, size));
+        return CursorPage.of(rows, size, row -> KeysetCursor.encode(row.getCreatedAt(), row.getUserId()));
+    }
+
 }
@@ -0,0 +1,85 @@
+-- ----------------------------
+-- 初始表结构，与 personal_blog_db.sql 一致（仅主键）。
+-- 已有数据的库由 baseline-on-migrate 标记为版本1，不会重复执行本脚本。
+-- ----------------------------
+
+SET NAMES utf8mb4;
+
+-- ----------------------------
+-- Table structure for article
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `article`  (
+  `article_id` int NOT NULL AUTO_INCREMENT COMMENT '文章id，主键自增',
+  `article_title` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文章标题',
+  `article_content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文章内容',
+  `user_id` int NOT NULL COMMENT '作者id',
+  `category_id` int NULL DEFAULT NULL COMMENT '分类id',
+  `tag_id` int NULL DEFAULT NULL COMMENT '标签id',
+  `background_path` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文章背景路径',
+  `created_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`article_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '文章表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for category
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `category`  (
+  `category_id` int NOT NULL AUTO_INCREMENT COMMENT '分类id，主键自增',
+  `category_name` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '分类名称',
+  `created_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`category_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '分类表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for comment
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `comment`  (
+  `comment_id` int NOT NULL AUTO_INCREMENT COMMENT '评论id，主键自增',
+  `article_id` int NOT NULL COMMENT '文章id',
+  `user_id` int NOT NULL COMMENT '用户id',
+  `comment_ip` varchar(15) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '评论ip',
+  `comment_content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '评论内容',
+  `comment_role` int NOT NULL DEFAULT 0 COMMENT '评论审核',
+  `parent_id` int NOT NULL COMMENT '评论父id，实现多级评论',
+  `created_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '评论时间',
+  PRIMARY KEY (`comment_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '评论表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for media
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `media`  (
+  `media_id` int NOT NULL AUTO_INCREMENT COMMENT '图片id，主键自增',
+  `media_name` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '图片名',
+  `media_path` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '图片路径',
+  PRIMARY KEY (`media_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '媒体文件表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for tag
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `tag`  (
+  `tag_id` int NOT NULL AUTO_INCREMENT COMMENT '标签id，主键自增',
+  `tag_name` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '标签名称',
+  `created_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updated_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`tag_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '标签表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for user
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `user`  (
+  `user_id` int NOT NULL AUTO_INCREMENT COMMENT '用户id，主键自增',
+  `username` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '用户名',
+  `password` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '密码',
+  `email` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '邮箱',
+  `avatar_path` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '头像路径',
+  `user_nickname` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '用户昵称',
+  `user_role` int UNSIGNED NOT NULL DEFAULT 0 COMMENT '用户权限',
+  `created_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '注册时间',
+  `updated_at` datetime NOT NULL ON UPDATE CURRENT_TIMESTAMP COMMENT '修改时间',
+  PRIMARY KEY (`user_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '用户表' ROW_FORMAT = DYNAMIC;
@@ -0,0 +1,23 @@
+-- ----------------------------
+-- 热点查询列的二级索引
+-- ----------------------------
+
+-- 登录时按用户名加载用户（MyUserDetailsService），用户名唯一
+ALTER TABLE `user` ADD UNIQUE INDEX `uk_user_username` (`username`) USING BTREE;
+-- 按邮箱查询用户
+ALTER TABLE `user` ADD INDEX `idx_user_email` (`email`) USING BTREE;
+-- 用户游标分页：created_at DESC, user_id DESC
+ALTER TABLE `user` ADD INDEX `idx_user_created_at` (`created_at`, `user_id`) USING BTREE;
+
+-- 按分类、标签筛选文章
+ALTER TABLE `article` ADD INDEX `idx_article_category_id` (`category_id`) USING BTREE;
+ALTER TABLE `article` ADD INDEX `idx_article_tag_id` (`tag_id`) USING BTREE;
+-- 文章游标分页：created_at DESC, article_id DESC
+ALTER TABLE `article` ADD INDEX `idx_article_created_at` (`created_at`, `article_id`) USING BTREE;
+
+-- 按文章加载评论（CommentController.getComment），父评论、时间在同一索引中便于按线程读取
+ALTER TABLE `comment` ADD INDEX `idx_comment_article_parent` (`article_id`, `parent_id`, `created_at`) USING BTREE;
+-- 按父评论查询回复
+ALTER TABLE `comment` ADD INDEX `idx_comment_parent_id` (`parent_id`) USING BTREE;
+-- 评论游标分页：created_at DESC, comment_id DESC
+ALTER TABLE `comment` ADD INDEX `idx_comment_created_at` (`created_at`, `comment_id`) USING BTREE;
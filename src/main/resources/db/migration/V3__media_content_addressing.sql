@@ -0,0 +1,18 @@
+-- ----------------------------
+-- 媒体文件按内容寻址存储：相同内容只保存一份，media 表记录内容的哈希和大小，
+-- media_blob 表记录每份内容的存储路径和引用数
+-- ----------------------------
+
+ALTER TABLE `media`
+  ADD COLUMN `media_hash` char(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '文件内容SHA-256，旧数据为空',
+  ADD COLUMN `media_size` bigint NULL DEFAULT NULL COMMENT '文件大小（字节）',
+  ADD INDEX `idx_media_hash` (`media_hash`) USING BTREE;
+
+CREATE TABLE IF NOT EXISTS `media_blob`  (
+  `blob_hash` char(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '文件内容SHA-256，主键',
+  `blob_path` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '文件存储路径',
+  `blob_size` bigint NOT NULL COMMENT '文件大小（字节）',
+  `ref_count` int NOT NULL DEFAULT 0 COMMENT '引用该内容的媒体数',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`blob_hash`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '媒体文件内容表' ROW_FORMAT = DYNAMIC;
@@ -0,0 +1,6 @@
+-- ----------------------------
+-- 媒体缩略图：记录已生成的缩略图宽度，缩略图文件与原文件放在同一目录
+-- ----------------------------
+
+ALTER TABLE `media`
+  ADD COLUMN `media_variants` varchar(64) CHARACTER SET ascii COLLATE ascii_bin NULL DEFAULT NULL COMMENT '已生成的缩略图宽度，逗号分隔；空字符串表示无需生成，NULL表示尚未处理';
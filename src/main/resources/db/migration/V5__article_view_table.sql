@@ -0,0 +1,10 @@
+-- ----------------------------
+-- 文章浏览量：浏览在各节点内存中累加，经Redis汇总后定期批量写入；
+-- 放在单独的表中，累加浏览量不修改 article 行
+-- ----------------------------
+
+CREATE TABLE IF NOT EXISTS `article_view`  (
+  `article_id` int NOT NULL COMMENT '文章id，主键',
+  `view_count` bigint NOT NULL DEFAULT 0 COMMENT '浏览量',
+  PRIMARY KEY (`article_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '文章浏览量表' ROW_FORMAT = DYNAMIC;
@@ -0,0 +1,5 @@
+-- ----------------------------
+-- 按内容寻址之前上传的媒体文件，读取时按路径确认在 media 表中登记过
+-- ----------------------------
+
+ALTER TABLE `media` ADD INDEX `idx_media_path` (`media_path`) USING BTREE;
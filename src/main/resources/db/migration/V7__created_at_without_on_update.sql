@@ -0,0 +1,11 @@
+-- ----------------------------
+-- 创建时间不随修改变化：V1 中各表的 created_at 带有 ON UPDATE CURRENT_TIMESTAMP，
+-- 任何一次 UPDATE 都会把创建时间改成修改时间。
+-- 游标分页、全文检索排序和显示的日期都依赖该列，这里去掉 ON UPDATE，只保留 updated_at 的自动更新
+-- ----------------------------
+
+ALTER TABLE `article` MODIFY COLUMN `created_at` datetime NOT NULL COMMENT '创建时间';
+ALTER TABLE `category` MODIFY COLUMN `created_at` datetime NOT NULL COMMENT '创建时间';
+ALTER TABLE `comment` MODIFY COLUMN `created_at` datetime NOT NULL COMMENT '评论时间';
+ALTER TABLE `tag` MODIFY COLUMN `created_at` datetime NOT NULL COMMENT '创建时间';
+ALTER TABLE `user` MODIFY COLUMN `created_at` datetime NOT NULL COMMENT '注册时间';
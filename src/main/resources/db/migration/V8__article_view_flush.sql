@@ -0,0 +1,11 @@
+-- ----------------------------
+-- 已写入数据库的浏览量批次：同一批次只累加一次，
+-- 防止进程在写入后退出或写入锁过期时重复累加
+-- ----------------------------
+
+CREATE TABLE IF NOT EXISTS `article_view_flush`  (
+  `batch_id` char(36) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '批次ID，主键',
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '写入时间',
+  PRIMARY KEY (`batch_id`) USING BTREE,
+  INDEX `idx_article_view_flush_created_at` (`created_at`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '文章浏览量已写入批次表' ROW_FORMAT = DYNAMIC;
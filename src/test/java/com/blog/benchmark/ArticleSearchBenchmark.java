@@ -0,0 +1,142 @@
+package com.blog.benchmark;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.blog.web.config.search.ArticleSearchIndex;
+import com.blog.web.dto.ArticleSummary;
+import com.blog.web.entity.Article;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文章全文检索在10万篇文章上的查询延迟（JMH，按采样给出p50、p99等分位数）。
+ * <p>
+ * 在临时目录中建立索引，文章由常用词随机组成，直接运行main方法即可。
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArticleSearchBenchmark {
+
+    private static final int ARTICLES = 100_000;
+
+    private static final int BATCH = 5_000;
+
+    /**
+     * 预先生成的查询数，循环使用。
+     */
+    private static final int QUERIES = 1_024;
+
+    private static final String[] WORDS = {
+            "数据库", "索引", "缓存", "线程", "并发", "性能", "优化", "分布式", "事务", "锁",
+            "网络", "协议", "内存", "垃圾回收", "虚拟机", "编译", "框架", "微服务", "容器", "部署",
+            "算法", "排序", "查询", "存储", "日志", "监控", "安全", "加密", "认证", "接口",
+            "前端", "后端", "设计", "模式", "测试", "重构", "架构", "消息", "队列", "搜索"
+    };
+
+    private Path dir;
+
+    private ArticleSearchIndex index;
+
+    private String[] keywords;
+
+    private int[] pages;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("article-search-");
+        index = new ArticleSearchIndex();
+        ReflectionTestUtils.setField(index, "indexPath", dir.toString());
+        ReflectionTestUtils.setField(index, "titleBoost", 2.0f);
+        ReflectionTestUtils.setField(index, "maxResults", 1000);
+        ReflectionTestUtils.setField(index, "excerptLength", 150);
+        index.open();
+
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        List<Article> batch = new ArrayList<>(BATCH);
+        for (int i = 1; i <= ARTICLES; i++) {
+            batch.add(sampleArticle(i, random));
+            if (batch.size() == BATCH) {
+                index.indexBatch(batch);
+                batch.clear();
+            }
+        }
+        System.out.printf("index %d articles: %d ms%n", ARTICLES, (System.nanoTime() - start) / 1_000_000);
+
+        keywords = new String[QUERIES];
+        pages = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            keywords[i] = randomKeyword(random);
+            pages[i] = 1 + random.nextInt(3);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        index.close();
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void search(Blackhole blackhole) {
+        int i = next++ & (QUERIES - 1);
+        Page<ArticleSummary> page = new Page<>(pages[i], 10);
+        blackhole.consume(index.search(keywords[i], page));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ArticleSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static String randomKeyword(Random random) {
+        return random.nextBoolean()
+                ? WORDS[random.nextInt(WORDS.length)]
+                : WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static Article sampleArticle(int id, Random random) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(i % 12 == 11 ? "。" : "，");
+        }
+        Article article = new Article();
+        article.setArticleId(id);
+        article.setArticleTitle(WORDS[random.nextInt(WORDS.length)] + "与" + WORDS[random.nextInt(WORDS.length)] + "实践");
+        article.setArticleContent(content.toString());
+        article.setUserId(1);
+        article.setCategoryId(1 + random.nextInt(20));
+        article.setTagId(1 + random.nextInt(50));
+        article.setCreatedAt(LocalDateTime.now().minusMinutes(ARTICLES - id));
+        article.setUpdatedAt(article.getCreatedAt());
+        return article;
+    }
+}
@@ -0,0 +1,137 @@
+package com.blog.benchmark;
+
+import com.blog.web.config.CommentTreeBuilder;
+import com.blog.web.entity.Comment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 评论树构建在10000条评论上的耗时对比（JMH）：原先的递归 + Stream实现与迭代实现。
+ * <p>
+ * 分别测试宽树（随机回复已有评论）和一条10000层的回复链，直接运行main方法即可。
+ * 递归实现在回复链上栈溢出，只在宽树上测试，main方法先单独验证一次。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommentTreeBenchmark {
+
+    private static final int COMMENTS = 10_000;
+
+    private List<Comment> wide;
+
+    private List<Comment> deep;
+
+    @Setup
+    public void setUp() {
+        wide = wideThread();
+        deep = deepThread();
+    }
+
+    @Benchmark
+    public void wideRecursive(Blackhole blackhole) {
+        blackhole.consume(legacyBuild(wide));
+    }
+
+    @Benchmark
+    public void wideIterative(Blackhole blackhole) {
+        blackhole.consume(CommentTreeBuilder.build(wide, 0, false));
+    }
+
+    @Benchmark
+    public void wideIterativeMaxDepth3(Blackhole blackhole) {
+        blackhole.consume(CommentTreeBuilder.build(wide, 3, false));
+    }
+
+    @Benchmark
+    public void deepIterative(Blackhole blackhole) {
+        blackhole.consume(CommentTreeBuilder.build(deep, 0, false));
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            legacyBuild(deepThread());
+            System.out.println("recursive on a " + COMMENTS + "-level chain: ok");
+        } catch (StackOverflowError e) {
+            System.out.println("recursive on a " + COMMENTS + "-level chain: StackOverflowError");
+        }
+        new Runner(new OptionsBuilder().include(CommentTreeBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static List<Comment> wideThread() {
+        Random random = new Random(42);
+        List<Comment> comments = new ArrayList<>(COMMENTS);
+        LocalDateTime base = LocalDateTime.now();
+        for (int i = 1; i <= COMMENTS; i++) {
+            // 约20%为根评论，其余随机回复之前的评论
+            int parentId = i == 1 || random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(i - 1);
+            comments.add(comment(i, parentId, base.plusSeconds(i)));
+        }
+        return comments;
+    }
+
+    private static List<Comment> deepThread() {
+        List<Comment> comments = new ArrayList<>(COMMENTS);
+        LocalDateTime base = LocalDateTime.now();
+        for (int i = 1; i <= COMMENTS; i++) {
+            comments.add(comment(i, i - 1, base.plusSeconds(i)));
+        }
+        return comments;
+    }
+
+    private static Comment comment(int id, int parentId, LocalDateTime createdAt) {
+        Comment comment = new Comment();
+        comment.setCommentId(id);
+        comment.setArticleId(1);
+        comment.setUserId(1);
+        comment.setCommentContent("评论" + id);
+        comment.setParentId(parentId);
+        comment.setCreatedAt(createdAt);
+        return comment;
+    }
+
+    /**
+     * 原先 CommentController 中的实现，作为对照。
+     */
+    private static List<Map<String, Object>> legacyBuild(List<Comment> comments) {
+        Map<Integer, List<Comment>> commentMap = comments.stream().collect(Collectors.groupingBy(Comment::getParentId));
+        return commentMap.getOrDefault(0, new ArrayList<>())
+                .stream()
+                .map(comment -> legacyConvert(comment, commentMap))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> legacyConvert(Comment comment, Map<Integer, List<Comment>> commentMap) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("comment", comment);
+        List<Comment> children = commentMap.get(comment.getCommentId());
+        if (children != null && !children.isEmpty()) {
+            map.put("children", children.stream().map(child -> legacyConvert(child, commentMap)).collect(Collectors.toList()));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,79 @@
+package com.blog.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT过滤器单次解析与原有多次解析的CPU开销对比（JMH）。
+ * <p>
+ * 原实现每个请求构建4次解析器并校验4次签名，新实现使用预先构建的解析器只校验1次。
+ * 直接运行main方法即可，结果为每个请求的平均耗时。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtParseBenchmark {
+
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor("f0c8e4b20a9d4c079d59a7c1d3f20356".getBytes());
+        token = Jwts.builder()
+                .subject("admin")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 30 * 60 * 1000))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+        parser = Jwts.parser().verifyWith(key).build();
+    }
+
+    /**
+     * 模拟原过滤器：提取用户名、刷新、验证、过期检查各解析一次。
+     */
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (int i = 0; i < 4; i++) {
+            blackhole.consume(Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload());
+        }
+    }
+
+    /**
+     * 模拟新过滤器：一次解析，声明对象在各步骤间传递。
+     */
+    @Benchmark
+    public void singleParse(Blackhole blackhole) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        blackhole.consume(claims.getSubject() != null && claims.getExpiration().after(new Date()) ? claims : null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtParseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
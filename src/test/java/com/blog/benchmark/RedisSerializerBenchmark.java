@@ -0,0 +1,142 @@
+package com.blog.benchmark;
+
+import com.blog.web.config.EntityBinaryRedisSerializer;
+import com.blog.web.entity.Article;
+import com.blog.web.entity.Category;
+import com.blog.web.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二进制序列化器与当前JSON序列化器的负载大小和吞吐量对比（JMH）。
+ * <p>
+ * JSON序列化器的配置与 {@code MyRedisConfig} 一致。直接运行main方法即可，先输出负载大小，再运行JMH。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    private String serializer;
+
+    @Param({"article", "user", "categories"})
+    private String payload;
+
+    private RedisSerializer<Object> redisSerializer;
+
+    private Object value;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        redisSerializer = "json".equals(serializer) ? json() : new EntityBinaryRedisSerializer(json());
+        value = sample(payload);
+        bytes = redisSerializer.serialize(value);
+    }
+
+    @Benchmark
+    public void serialize(Blackhole blackhole) {
+        blackhole.consume(redisSerializer.serialize(value));
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole blackhole) {
+        blackhole.consume(redisSerializer.deserialize(bytes));
+    }
+
+    public static void main(String[] args) throws Exception {
+        RedisSerializer<Object> json = json();
+        RedisSerializer<Object> binary = new EntityBinaryRedisSerializer(json);
+        for (String payload : List.of("article", "user", "categories")) {
+            int jsonBytes = json.serialize(sample(payload)).length;
+            int binaryBytes = binary.serialize(sample(payload)).length;
+            System.out.printf("%-10s payload   json %6d B   binary %6d B   (%.0f%%)%n",
+                    payload, jsonBytes, binaryBytes, 100.0 * binaryBytes / jsonBytes);
+        }
+        new Runner(new OptionsBuilder().include(RedisSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static RedisSerializer<Object> json() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder().allowIfSubType(Object.class).build(),
+                ObjectMapper.DefaultTyping.NON_FINAL);
+        return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+    }
+
+    private static Object sample(String payload) {
+        return switch (payload) {
+            case "article" -> sampleArticle();
+            case "user" -> sampleUser();
+            default -> sampleCategories();
+        };
+    }
+
+    private static Article sampleArticle() {
+        Article article = new Article();
+        article.setArticleId(1024);
+        article.setArticleTitle("Spring Boot 3 与 MyBatis-Plus 实践");
+        article.setArticleContent("正文内容".repeat(500));
+        article.setUserId(1);
+        article.setCategoryId(3);
+        article.setTagId(7);
+        article.setBackgroundPath("/upload/background.jpg");
+        article.setCreatedAt(LocalDateTime.now());
+        article.setUpdatedAt(LocalDateTime.now());
+        return article;
+    }
+
+    private static User sampleUser() {
+        User user = new User();
+        user.setUserId(1);
+        user.setUsername("admin");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BiRk4Xbr0CjjUGrlIpzZfrB.jPZm");
+        user.setEmail("admin@example.com");
+        user.setAvatarPath("/upload/avatar.png");
+        user.setUserNickname("苍晖");
+        user.setUserRole(1);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        return user;
+    }
+
+    private static List<Category> sampleCategories() {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Category category = new Category();
+            category.setCategoryId(i);
+            category.setCategoryName("分类" + i);
+            category.setCreatedAt(LocalDateTime.now());
+            category.setUpdatedAt(LocalDateTime.now());
+            categories.add(category);
+        }
+        return categories;
+    }
+}
@@ -0,0 +1,123 @@
+package com.blog.benchmark;
+
+import com.blog.web.config.MyRedisConfig;
+import com.blog.web.config.security.TokenSessionStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话存储对本地Redis的吞吐量测试（每秒操作数，JMH）。
+ * <p>
+ * 需要本地运行Redis（localhost:6379），直接运行main方法即可。
+ * 分别测试逐条签发、管道批量签发、检查和注销的吞吐量，每次调用处理 {@value #BATCH} 个会话。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenSessionStoreBenchmark {
+
+    private static final int BATCH = 256;
+
+    private LettuceConnectionFactory factory;
+
+    private TokenSessionStore store;
+
+    private List<String> usernames;
+
+    private List<String[]> sessions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 6379));
+        factory.afterPropertiesSet();
+        RedisTemplate<String, Object> redisTemplate = new MyRedisConfig().redisTemplate(factory);
+        store = new TokenSessionStore();
+        ReflectionTestUtils.setField(store, "redisTemplate", redisTemplate);
+        store.init();
+
+        usernames = new ArrayList<>(BATCH);
+        sessions = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            String username = "bench-" + i;
+            usernames.add(username);
+            sessions.add(new String[]{username, UUID.randomUUID().toString()});
+        }
+        store.issueAll(sessions);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        store.revokeAll(usernames);
+        store.destroy();
+        factory.destroy();
+    }
+
+    /**
+     * 逐条签发，每次登录一次往返。
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void issue() {
+        for (String[] session : sessions) {
+            store.issue(session[0], session[1]);
+        }
+    }
+
+    /**
+     * 管道批量签发，一次往返。
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void issueAll() {
+        store.issueAll(sessions);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void isActive(Blackhole blackhole) {
+        for (String[] session : sessions) {
+            blackhole.consume(store.isActive(session[0], session[1]));
+        }
+    }
+
+    /**
+     * 逐条注销；已注销的会话也执行一次DEL，与注销仍存在的会话往返次数相同。
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void revoke(Blackhole blackhole) {
+        for (String username : usernames) {
+            blackhole.consume(store.revoke(username));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TokenSessionStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.blog.web.config;
+
+import com.blog.web.dto.CommentNode;
+import com.blog.web.entity.Comment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 评论树的层级、同级排序、最大层级限制以及异常数据的处理。
+ */
+class CommentTreeBuilderTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 7, 1, 12, 0);
+
+    @Test
+    void nestsRepliesInCreationOrder() {
+        List<Comment> comments = List.of(
+                comment(3, 1, 3),
+                comment(2, null, 2),
+                comment(1, null, 1),
+                comment(5, 3, 5),
+                comment(4, 1, 2));
+
+        List<CommentNode> roots = CommentTreeBuilder.build(comments, 0, false);
+
+        assertEquals(List.of(1, 2), ids(roots));
+        assertEquals(List.of(4, 3), ids(roots.get(0).getChildren()));
+        assertEquals(List.of(5), ids(roots.get(0).getChildren().get(1).getChildren()));
+        assertNull(roots.get(1).getChildren());
+    }
+
+    @Test
+    void descendingOrder() {
+        List<Comment> comments = List.of(
+                comment(1, null, 1),
+                comment(2, null, 2),
+                comment(3, 1, 3),
+                comment(4, 1, 4));
+
+        List<CommentNode> roots = CommentTreeBuilder.build(comments, 0, true);
+
+        assertEquals(List.of(2, 1), ids(roots));
+        assertEquals(List.of(4, 3), ids(roots.get(1).getChildren()));
+    }
+
+    @Test
+    void sameTimeOrderedById() {
+        List<Comment> comments = List.of(comment(3, null, 1), comment(1, null, 1), comment(2, null, 1));
+
+        assertEquals(List.of(1, 2, 3), ids(CommentTreeBuilder.build(comments, 0, false)));
+        assertEquals(List.of(3, 2, 1), ids(CommentTreeBuilder.build(comments, 0, true)));
+    }
+
+    @Test
+    void zeroParentIsRoot() {
+        List<Comment> comments = List.of(comment(1, 0, 1), comment(2, null, 2));
+
+        assertEquals(List.of(1, 2), ids(CommentTreeBuilder.build(comments, 0, false)));
+    }
+
+    @Test
+    void excludesOrphansAndCycles() {
+        List<Comment> comments = List.of(
+                comment(1, null, 1),
+                // 父评论已删除，连同其回复都不显示
+                comment(2, 99, 2),
+                comment(3, 2, 3),
+                // 父子关系成环
+                comment(4, 5, 4),
+                comment(5, 4, 5),
+                comment(6, 6, 6));
+
+        List<CommentNode> roots = CommentTreeBuilder.build(comments, 0, false);
+
+        assertEquals(List.of(1), ids(roots));
+        assertNull(roots.get(0).getChildren());
+    }
+
+    @Test
+    void flattensRepliesBeyondMaxDepth() {
+        List<Comment> comments = List.of(
+                comment(1, null, 1),
+                comment(2, 1, 2),
+                comment(3, 2, 3),
+                comment(4, 3, 4),
+                comment(5, 1, 5));
+
+        List<CommentNode> roots = CommentTreeBuilder.build(comments, 2, false);
+
+        assertEquals(List.of(1), ids(roots));
+        // 第3、4层的回复挂到第1层的祖先下，显示在第2层
+        assertEquals(List.of(2, 3, 4, 5), ids(roots.get(0).getChildren()));
+        for (CommentNode child : roots.get(0).getChildren()) {
+            assertNull(child.getChildren());
+        }
+
+        List<CommentNode> flat = CommentTreeBuilder.build(comments, 1, false);
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(flat));
+    }
+
+    @Test
+    void doesNotModifyInput() {
+        List<Comment> comments = new ArrayList<>(List.of(comment(2, null, 2), comment(1, null, 1)));
+
+        CommentTreeBuilder.build(comments, 0, false);
+
+        assertEquals(List.of(2, 1), comments.stream().map(Comment::getCommentId).toList());
+    }
+
+    private static Comment comment(int id, Integer parentId, int minute) {
+        Comment comment = new Comment();
+        comment.setCommentId(id);
+        comment.setParentId(parentId);
+        comment.setCreatedAt(BASE.plusMinutes(minute));
+        return comment;
+    }
+
+    private static List<Integer> ids(List<CommentNode> nodes) {
+        return nodes.stream().map(node -> node.getComment().getCommentId()).toList();
+    }
+
+}
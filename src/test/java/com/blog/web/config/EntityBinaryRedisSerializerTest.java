@@ -0,0 +1,200 @@
+package com.blog.web.config;
+
+import com.blog.web.entity.Article;
+import com.blog.web.entity.Category;
+import com.blog.web.entity.Comment;
+import com.blog.web.entity.Media;
+import com.blog.web.entity.Tag;
+import com.blog.web.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 实体二进制序列化：各类型往返、空字段、版本兼容以及回退到JSON序列化。
+ */
+class EntityBinaryRedisSerializerTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 7, 1, 12, 30, 15, 123_456_789);
+
+    private final EntityBinaryRedisSerializer serializer = new EntityBinaryRedisSerializer(RedisSerializer.json());
+
+    @Test
+    void roundTripArticle() {
+        Article article = new Article();
+        article.setArticleId(1);
+        article.setArticleTitle("标题");
+        // 超过writeUTF的64KB限制
+        article.setArticleContent("内容".repeat(40_000));
+        article.setUserId(2);
+        article.setCategoryId(3);
+        article.setTagId(4);
+        article.setBackgroundPath("/media/background.png");
+        article.setCreatedAt(TIME);
+        article.setUpdatedAt(TIME.plusDays(1));
+        article.setViewCount(12_345L);
+
+        assertEquals(article, roundTrip(article));
+    }
+
+    @Test
+    void roundTripOtherEntities() {
+        Category category = new Category();
+        category.setCategoryId(1);
+        category.setCategoryName("分类");
+        category.setCreatedAt(TIME);
+        category.setUpdatedAt(TIME);
+
+        Comment comment = new Comment();
+        comment.setCommentId(1);
+        comment.setArticleId(2);
+        comment.setUserId(3);
+        comment.setCommentIp("127.0.0.1");
+        comment.setCommentContent("评论");
+        comment.setCommentRole(1);
+        comment.setParentId(0);
+        comment.setCreatedAt(TIME);
+
+        Media media = new Media();
+        media.setMediaId(1);
+        media.setMediaName("a.png");
+        media.setMediaPath("ab/abcdef.png");
+        media.setMediaHash("abcdef");
+        media.setMediaSize(1024L);
+        media.setMediaVariants("320,640");
+
+        Tag tag = new Tag();
+        tag.setTagId(1);
+        tag.setTagName("标签");
+        tag.setCreatedAt(TIME);
+        tag.setUpdatedAt(TIME);
+
+        User user = new User();
+        user.setUserId(1);
+        user.setUsername("admin");
+        user.setPassword("{bcrypt}hash");
+        user.setEmail("admin@example.com");
+        user.setAvatarPath("/media/avatar.png");
+        user.setUserNickname("管理员");
+        user.setUserRole(1);
+        user.setCreatedAt(TIME);
+        user.setUpdatedAt(TIME);
+
+        for (Object value : List.of(category, comment, media, tag, user)) {
+            assertEquals(value, roundTrip(value));
+        }
+    }
+
+    @Test
+    void roundTripNullFields() {
+        for (Object value : List.of(new Article(), new Category(), new Comment(), new Media(), new Tag(), new User())) {
+            assertEquals(value, roundTrip(value));
+        }
+    }
+
+    @Test
+    void roundTripListsAndScalars() {
+        Tag tag = new Tag();
+        tag.setTagId(1);
+        tag.setTagName("标签");
+        List<Object> list = List.of(tag, "文本", 42, 42L);
+
+        assertEquals(list, roundTrip(list));
+        assertEquals(List.of(), roundTrip(List.of()));
+        assertEquals("", roundTrip(""));
+        assertEquals(Integer.MIN_VALUE, roundTrip(Integer.MIN_VALUE));
+        assertEquals(Long.MAX_VALUE, roundTrip(Long.MAX_VALUE));
+    }
+
+    @Test
+    void writesMagicAndVersion() {
+        byte[] bytes = serializer.serialize(new Tag());
+
+        assertEquals(EntityBinaryRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(EntityBinaryRedisSerializer.VERSION, bytes[1]);
+    }
+
+    @Test
+    void nullAndEmpty() {
+        assertArrayEquals(new byte[0], serializer.serialize(null));
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void rejectsNewerVersion() {
+        byte[] bytes = serializer.serialize(new Tag());
+        bytes[1] = (byte) (EntityBinaryRedisSerializer.VERSION + 1);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    @Test
+    void readsMediaWrittenBeforeHash() {
+        Media media = new Media();
+        media.setMediaId(1);
+        media.setMediaPath("avatar.png");
+
+        // 版本1没有mediaHash、mediaSize、mediaVariants
+        assertEquals(media, readAsVersion(media, 1, 9));
+    }
+
+    @Test
+    void readsMediaWrittenBeforeVariants() {
+        Media media = new Media();
+        media.setMediaId(1);
+        media.setMediaHash("abcdef");
+        media.setMediaSize(1024L);
+
+        // 版本2没有mediaVariants
+        assertEquals(media, readAsVersion(media, 2, 4));
+    }
+
+    @Test
+    void readsArticleWrittenBeforeViewCount() {
+        Article article = new Article();
+        article.setArticleId(1);
+        article.setArticleTitle("标题");
+        article.setCreatedAt(TIME);
+
+        // 版本3没有viewCount
+        assertEquals(article, readAsVersion(article, 3, 1));
+    }
+
+    @Test
+    void delegatesOtherTypesToFallback() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("key", "value");
+        byte[] bytes = serializer.serialize(map);
+
+        assertNotEquals(EntityBinaryRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(map, serializer.deserialize(bytes));
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+
+    /**
+     * 模拟旧版本写入的数据：新增字段都为null时位于末尾，去掉这些字节并改写版本号。
+     */
+    private Object readAsVersion(Object value, int version, int newFieldBytes) {
+        byte[] bytes = serializer.serialize(value);
+        byte[] old = Arrays.copyOf(bytes, bytes.length - newFieldBytes);
+        old[1] = (byte) version;
+        return serializer.deserialize(old);
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.blog.web.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 游标的编码、解码和每页条数的限制。
+ */
+class KeysetCursorTest {
+
+    @Test
+    void roundTrip() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 7, 1, 12, 30, 15, 123_456_789);
+        String cursor = KeysetCursor.encode(createdAt, 42);
+
+        assertEquals(new KeysetCursor(createdAt, 42), KeysetCursor.decode(cursor));
+        assertFalse(cursor.contains("+") || cursor.contains("/") || cursor.contains("="));
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("  "));
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("不是游标"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("2024-07-01T12:00")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("2024-07-01T12:00|abc")));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("yesterday|1")));
+    }
+
+    @Test
+    void clampPageSize() {
+        assertEquals(10, KeysetCursor.clampPageSize(null));
+        assertEquals(10, KeysetCursor.clampPageSize(0));
+        assertEquals(10, KeysetCursor.clampPageSize(-5));
+        assertEquals(20, KeysetCursor.clampPageSize(20));
+        assertEquals(KeysetCursor.MAX_PAGE_SIZE, KeysetCursor.clampPageSize(KeysetCursor.MAX_PAGE_SIZE + 1));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,200 @@
+package com.blog.web.config.cache;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.blog.web.config.CommentTreeBuilder;
+import com.blog.web.dto.CommentNode;
+import com.blog.web.entity.Comment;
+import com.blog.web.mapper.CommentMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评论树缓存的增量修改：插入新评论后的树与从数据库重建的树一致，影响结构的修改丢弃整棵树。
+ */
+class CommentTreeCacheTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 7, 1, 12, 0);
+
+    private final CommentMapper commentMapper = mock(CommentMapper.class);
+
+    private final CacheInvalidationBus invalidationBus = mock(CacheInvalidationBus.class);
+
+    /**
+     * 模拟数据库中该文章的评论。
+     */
+    private final List<Comment> stored = new ArrayList<>();
+
+    private CommentTreeBuilder commentTreeBuilder;
+
+    private CommentTreeCache cache;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 加载评论树的查询条件依赖实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Comment.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(commentMapper.selectList(any())).thenAnswer(invocation -> new ArrayList<>(stored));
+        stored.addAll(List.of(
+                comment(1, null, 1),
+                comment(2, null, 5),
+                comment(3, 1, 2),
+                comment(4, 3, 3),
+                comment(5, 1, 6)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, asc", "2, asc", "0, desc", "2, desc"})
+    void patchedTreeMatchesRebuiltTree(int maxDepth, String childOrder) {
+        createCache(maxDepth, childOrder);
+        cache.get(1);
+
+        List<Comment> added = List.of(
+                // 根评论，时间在已有根评论之间
+                comment(10, null, 3),
+                // 回复根评论
+                comment(11, 2, 7),
+                // 回复第3层的评论，超过最大层级时与父评论同级
+                comment(12, 4, 8),
+                // 回复刚插入的评论
+                comment(13, 12, 9),
+                // 与已有评论时间相同，按ID排序
+                comment(14, 1, 2),
+                // 父评论不存在，重建时不显示
+                comment(15, 99, 10));
+        for (Comment comment : added) {
+            stored.add(comment);
+            cache.onAdded(comment);
+        }
+        // 加载之后、通知之前已包含的评论不重复插入
+        cache.onAdded(added.get(0));
+
+        assertEquals(shape(CommentTreeBuilder.build(stored, maxDepth, "desc".equals(childOrder))), shape(cache.get(1)));
+        verify(commentMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void addingToAnUncachedArticleDoesNotLoadIt() {
+        createCache(0, "asc");
+
+        cache.onAdded(comment(10, null, 3));
+
+        verify(commentMapper, never()).selectList(any());
+        verify(invalidationBus).publish(eq("comment-tree"), any());
+    }
+
+    @Test
+    void contentChangeReplacesTheNode() {
+        createCache(0, "asc");
+        cache.get(1);
+        Comment before = stored.get(3);
+        Comment after = comment(4, 3, 3);
+        after.setCommentContent("已修改");
+
+        cache.onUpdated(before, after);
+
+        assertSame(after, cache.get(1).get(0).getChildren().get(0).getChildren().get(0).getComment());
+        verify(commentMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void parentChangeRebuildsTheTree() {
+        createCache(0, "asc");
+        cache.get(1);
+        Comment before = stored.get(3);
+        Comment after = comment(4, 2, 3);
+        stored.set(3, after);
+
+        cache.onUpdated(before, after);
+
+        assertEquals("1[3,5],2[4]", shape(cache.get(1)));
+        verify(commentMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void onlyMessagesFromOtherNodesDropTheTree() {
+        createCache(0, "asc");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(eq("comment-tree"), listener.capture());
+        cache.get(1);
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        cache.onAdded(comment(10, null, 3));
+        stored.add(comment(10, null, 3));
+        verify(invalidationBus).publish(eq("comment-tree"), published.capture());
+
+        listener.getValue().accept(published.getValue());
+        cache.get(1);
+        verify(commentMapper, times(1)).selectList(any());
+
+        listener.getValue().accept("other-node:1");
+        cache.get(1);
+        verify(commentMapper, times(2)).selectList(any());
+    }
+
+    private void createCache(int maxDepth, String childOrder) {
+        commentTreeBuilder = new CommentTreeBuilder();
+        ReflectionTestUtils.setField(commentTreeBuilder, "maxDepth", maxDepth);
+        ReflectionTestUtils.setField(commentTreeBuilder, "childOrder", childOrder);
+        cache = new CommentTreeCache();
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWriteSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "commentMapper", commentMapper);
+        ReflectionTestUtils.setField(cache, "commentTreeBuilder", commentTreeBuilder);
+        ReflectionTestUtils.setField(cache, "invalidationBus", invalidationBus);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    /**
+     * 树的结构，形如 "1[3[4],5],2"。
+     */
+    private static String shape(List<CommentNode> nodes) {
+        if (nodes == null) {
+            return "";
+        }
+        List<String> parts = new ArrayList<>();
+        for (CommentNode node : nodes) {
+            String children = shape(node.getChildren());
+            parts.add(node.getComment().getCommentId() + (children.isEmpty() ? "" : "[" + children + "]"));
+        }
+        return String.join(",", parts);
+    }
+
+    private static Comment comment(int id, Integer parentId, int minute) {
+        Comment comment = new Comment();
+        comment.setCommentId(id);
+        comment.setArticleId(1);
+        comment.setUserId(1);
+        comment.setCommentContent("评论" + id);
+        comment.setParentId(parentId);
+        comment.setCreatedAt(BASE.plusMinutes(minute));
+        return comment;
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.blog.web.service.impl;
+
+import com.blog.web.entity.ArticleView;
+import com.blog.web.mapper.ArticleViewMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文章浏览量的读取回退、删除标记以及写入数据库时对已删除文章的处理。
+ */
+class ArticleViewCounterTest {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+
+    private final ArticleViewMapper articleViewMapper = mock(ArticleViewMapper.class);
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+
+    private ArticleViewCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new ArticleViewCounter();
+        ReflectionTestUtils.setField(counter, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(counter, "articleViewMapper", articleViewMapper);
+        ReflectionTestUtils.setField(counter, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(counter, "fallbackMaximumSize", 100L);
+        ReflectionTestUtils.setField(counter, "dbFlushMs", 60000L);
+        counter.init();
+        when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void countReadsTheRank() {
+        rankReturns(42.0, true);
+
+        assertEquals(42L, counter.count(7));
+
+        verify(articleViewMapper, never()).selectById(any());
+    }
+
+    @Test
+    void articleMissingFromSeededRankHasNoViews() {
+        rankReturns(null, true);
+
+        assertEquals(0L, counter.count(7));
+
+        verify(articleViewMapper, never()).selectById(any());
+    }
+
+    @Test
+    void databaseIsQueriedOncePerArticleBeforeSeeding() {
+        rankReturns(null, false);
+        ArticleView view = new ArticleView();
+        view.setArticleId(7);
+        view.setViewCount(5L);
+        when(articleViewMapper.selectById(7)).thenReturn(view);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(5L, counter.count(7));
+            assertEquals(0L, counter.count(8));
+        }
+
+        verify(articleViewMapper, times(1)).selectById(7);
+        verify(articleViewMapper, times(1)).selectById(8);
+    }
+
+    @Test
+    void removeMarksTheArticleBeforeDeletingItsRow() {
+        counter.record(7);
+
+        counter.remove(7);
+
+        InOrder order = inOrder(stringRedisTemplate, articleViewMapper);
+        order.verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(
+                "article:views:removed", "article:views:rank", "article:views:pending")), any());
+        order.verify(articleViewMapper).deleteById(7);
+    }
+
+    @Test
+    void flushDeletesRowsOfArticlesRemovedDuringTheFlush() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation ->
+                invocation.<RedisScript<?>>getArgument(0).getResultType() == String.class ? "batch-1" : 1L);
+        when(hashOperations.entries("article:views:flushing")).thenReturn(Map.of("1", "5", "2", "3"));
+        when(hashOperations.keys("article:views:removed")).thenReturn(Set.of("2", "9"));
+
+        ReflectionTestUtils.invokeMethod(counter, "flushPending");
+
+        InOrder order = inOrder(articleViewMapper);
+        order.verify(articleViewMapper).insertFlush("batch-1");
+        order.verify(articleViewMapper).addViewCounts(Map.of(1, 5L, 2, 3L));
+        order.verify(articleViewMapper).deleteBatchIds(List.of(2));
+    }
+
+    @Test
+    void flushWithoutRemovedArticlesDeletesNothing() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenAnswer(invocation ->
+                invocation.<RedisScript<?>>getArgument(0).getResultType() == String.class ? "batch-1" : 1L);
+        when(hashOperations.entries("article:views:flushing")).thenReturn(Map.of("1", "5"));
+        when(hashOperations.keys("article:views:removed")).thenReturn(Set.of());
+
+        ReflectionTestUtils.invokeMethod(counter, "flushPending");
+
+        verify(articleViewMapper).addViewCounts(anyMap());
+        verify(articleViewMapper, never()).deleteBatchIds(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rankReturns(Double score, boolean seeded) {
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(Arrays.asList(score, seeded));
+    }
+
+}
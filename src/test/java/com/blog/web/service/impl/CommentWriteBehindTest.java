@@ -0,0 +1,245 @@
+package com.blog.web.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.blog.web.config.cache.CommentTreeCache;
+import com.blog.web.entity.Article;
+import com.blog.web.entity.Comment;
+import com.blog.web.mapper.ArticleMapper;
+import com.blog.web.mapper.CommentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.invocation.Invocation;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评论延迟写入的提交校验、失败批次的逐条重试以及溢出文件的重放。
+ */
+class CommentWriteBehindTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2024, 7, 1, 12, 0, 0);
+
+    @TempDir
+    Path dir;
+
+    private final CommentMapper commentMapper = mock(CommentMapper.class);
+
+    private final ArticleMapper articleMapper = mock(ArticleMapper.class);
+
+    private final CommentTreeCache commentTreeCache = mock(CommentTreeCache.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private CommentWriteBehind writeBehind;
+
+    private BlockingQueue<Comment> pending;
+
+    private Path spillFile;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 查询条件中的Lambda列名依赖实体的表信息
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Comment.class);
+        TableInfoHelper.initTableInfo(assistant, Article.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        spillFile = dir.resolve("comment-write-behind.jsonl");
+        pending = new LinkedBlockingQueue<>(10);
+        writeBehind = new CommentWriteBehind();
+        ReflectionTestUtils.setField(writeBehind, "commentMapper", commentMapper);
+        ReflectionTestUtils.setField(writeBehind, "articleMapper", articleMapper);
+        ReflectionTestUtils.setField(writeBehind, "commentTreeCache", commentTreeCache);
+        ReflectionTestUtils.setField(writeBehind, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(writeBehind, "spillFile", spillFile.toString());
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 100);
+        ReflectionTestUtils.setField(writeBehind, "pending", pending);
+        when(articleMapper.exists(any())).thenReturn(true);
+        // 内容为 "bad" 的评论违反约束，内容为 "timeout" 的评论模拟数据库超时
+        when(commentMapper.insert(any(Comment.class))).thenAnswer(invocation -> {
+            Comment comment = invocation.getArgument(0);
+            if ("bad".equals(comment.getCommentContent())) {
+                throw new DataIntegrityViolationException("Data too long for column 'comment_content'");
+            }
+            if ("timeout".equals(comment.getCommentContent())) {
+                throw new QueryTimeoutException("timeout");
+            }
+            comment.setCommentId(ids.incrementAndGet());
+            return 1;
+        });
+    }
+
+    @Test
+    void submitQueuesValidComment() {
+        Comment comment = comment("ok");
+        comment.setCreatedAt(TIME.withNano(600_000_000));
+
+        assertTrue(writeBehind.submit(comment));
+
+        assertTrue(comment.getCommentId() < 0);
+        assertEquals(TIME, comment.getCreatedAt());
+        assertEquals(1, pending.size());
+        assertNull(pending.peek().getCommentId());
+    }
+
+    @Test
+    void submitRejectsCommentsTheDatabaseWouldReject() {
+        Comment noContent = comment(null);
+        Comment noParent = comment("ok");
+        noParent.setParentId(null);
+        Comment ipv6 = comment("ok");
+        ipv6.setCommentIp("2001:db8:85a3::8a2e:370:7334");
+        Comment tooLong = comment("评".repeat(30_000));
+
+        for (Comment comment : List.of(noContent, noParent, ipv6, tooLong)) {
+            assertThrows(IllegalArgumentException.class, () -> writeBehind.submit(comment));
+        }
+        when(articleMapper.exists(any())).thenReturn(false);
+        assertThrows(IllegalArgumentException.class, () -> writeBehind.submit(comment("ok")));
+
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() throws Exception {
+        doThrow(new DataIntegrityViolationException("Data too long")).when(commentMapper).insertBatch(anyList());
+        Comment first = comment("first");
+        Comment bad = comment("bad");
+        Comment last = comment("last");
+
+        ReflectionTestUtils.invokeMethod(writeBehind, "flush", List.of(first, bad, last));
+
+        verify(commentTreeCache).onAdded(first);
+        verify(commentTreeCache).onAdded(last);
+        verify(commentTreeCache, never()).onAdded(bad);
+        assertEquals(List.of("bad"), spilledContents(spillFile));
+    }
+
+    @Test
+    void unavailableDatabaseSpillsWholeBatch() throws Exception {
+        doThrow(new CannotGetJdbcConnectionException("Connection refused")).when(commentMapper).insertBatch(anyList());
+
+        ReflectionTestUtils.invokeMethod(writeBehind, "flush", List.of(comment("first"), comment("second")));
+
+        verify(commentMapper, never()).insert(any(Comment.class));
+        assertEquals(List.of("first", "second"), spilledContents(spillFile));
+    }
+
+    @Test
+    void replayQuarantinesBadRowsAndKeepsTheRestForRetry() throws Exception {
+        Comment invalidIp = comment("ok");
+        invalidIp.setCommentIp("2001:db8:85a3::8a2e:370:7334");
+        Files.write(spillFile, List.of(
+                json(comment("saved")),
+                "{not json",
+                json(invalidIp),
+                json(comment("bad")),
+                json(comment("already saved")),
+                json(comment("timeout")),
+                json(comment("after timeout"))), StandardCharsets.UTF_8);
+        // 依次对应 "saved"、"bad"、"already saved"、"timeout"
+        when(commentMapper.exists(any())).thenReturn(false, false, true, false);
+
+        replay();
+
+        verify(commentMapper, times(3)).insert(any(Comment.class));
+        assertEquals(List.of("saved"), addedContents());
+        assertEquals(List.of("timeout", "after timeout"), spilledContents(spillFile));
+        List<String> quarantined = Files.readAllLines(dir.resolve("comment-write-behind.jsonl.quarantine"));
+        assertEquals(3, quarantined.size());
+        assertEquals("{not json", quarantined.get(0));
+        assertFalse(Files.exists(dir.resolve("comment-write-behind.jsonl.replaying")));
+    }
+
+    @Test
+    void replayResumesAnInterruptedReplay() throws Exception {
+        Path replaying = dir.resolve("comment-write-behind.jsonl.replaying");
+        Files.write(replaying, List.of(json(comment("saved before crash")), json(comment("not saved"))));
+        Files.write(spillFile, List.of(json(comment("spilled later"))));
+        when(commentMapper.exists(any())).thenReturn(true, false, false);
+
+        replay();
+
+        assertEquals(List.of("not saved"), addedContents());
+        assertFalse(Files.exists(replaying));
+        assertEquals(List.of("spilled later"), spilledContents(spillFile));
+
+        replay();
+
+        assertEquals(List.of("not saved", "spilled later"), addedContents());
+        assertFalse(Files.exists(spillFile));
+    }
+
+    private void replay() {
+        ReflectionTestUtils.invokeMethod(writeBehind, "replaySpillFile");
+    }
+
+    private List<String> addedContents() {
+        List<String> contents = new ArrayList<>();
+        for (Invocation invocation : mockingDetails(commentTreeCache).getInvocations()) {
+            contents.add(((Comment) invocation.getArgument(0)).getCommentContent());
+        }
+        return contents;
+    }
+
+    private List<String> spilledContents(Path path) throws Exception {
+        List<String> contents = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            contents.add(objectMapper.readValue(line, Comment.class).getCommentContent());
+        }
+        return contents;
+    }
+
+    private String json(Comment comment) throws Exception {
+        return objectMapper.writeValueAsString(comment);
+    }
+
+    private static Comment comment(String content) {
+        Comment comment = new Comment();
+        comment.setArticleId(1);
+        comment.setUserId(2);
+        comment.setCommentIp("127.0.0.1");
+        comment.setCommentContent(content);
+        comment.setParentId(0);
+        comment.setCreatedAt(TIME);
+        return comment;
+    }
+
+}
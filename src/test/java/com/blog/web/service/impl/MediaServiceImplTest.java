@@ -0,0 +1,198 @@
+package com.blog.web.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.blog.web.config.cache.MediaBytesCache;
+import com.blog.web.entity.Media;
+import com.blog.web.entity.MediaBlob;
+import com.blog.web.mapper.MediaBlobMapper;
+import com.blog.web.mapper.MediaMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 按内容寻址存储媒体时的引用计数：相同内容只保存一份，最后一个引用删除时才删除文件。
+ * 内容表用内存中的Map模拟 acquire/release 语句。
+ */
+class MediaServiceImplTest {
+
+    @TempDir
+    Path dir;
+
+    private final MediaMapper mediaMapper = mock(MediaMapper.class);
+
+    private final MediaBlobMapper mediaBlobMapper = mock(MediaBlobMapper.class);
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final MediaBytesCache mediaBytesCache = mock(MediaBytesCache.class);
+
+    private final Map<String, MediaBlob> blobs = new HashMap<>();
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    private ThreadPoolTaskExecutor executor;
+
+    private MediaServiceImpl mediaService;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // 查询同一内容已有缩略图的条件依赖实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Media.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        MediaStorage mediaStorage = new MediaStorage();
+        ReflectionTestUtils.setField(mediaStorage, "uploadPath", dir.toString());
+        ReflectionTestUtils.setField(mediaStorage, "variantWidths", new int[]{160});
+        mediaStorage.init();
+        executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+
+        mediaService = new MediaServiceImpl();
+        ReflectionTestUtils.setField(mediaService, "baseMapper", mediaMapper);
+        ReflectionTestUtils.setField(mediaService, "mediaStorage", mediaStorage);
+        ReflectionTestUtils.setField(mediaService, "mediaIoExecutor", executor);
+        ReflectionTestUtils.setField(mediaService, "mediaBlobMapper", mediaBlobMapper);
+        ReflectionTestUtils.setField(mediaService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(mediaService, "mediaVariantGenerator", mock(MediaVariantGenerator.class));
+        ReflectionTestUtils.setField(mediaService, "mediaBytesCache", mediaBytesCache);
+
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mediaMapper.insert(any(Media.class))).thenAnswer(invocation -> {
+            invocation.<Media>getArgument(0).setMediaId(ids.incrementAndGet());
+            return 1;
+        });
+        when(mediaMapper.deleteById(anyInt())).thenReturn(1);
+        // 与 MediaBlobMapper.xml 中的语句一致
+        when(mediaBlobMapper.acquire(anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            MediaBlob blob = blobs.computeIfAbsent(invocation.getArgument(0), hash -> {
+                MediaBlob created = new MediaBlob();
+                created.setBlobHash(hash);
+                created.setBlobPath(invocation.getArgument(1));
+                created.setBlobSize(invocation.getArgument(2));
+                created.setRefCount(0);
+                return created;
+            });
+            blob.setRefCount(blob.getRefCount() + 1);
+            return 1;
+        });
+        when(mediaBlobMapper.release(anyString())).thenAnswer(invocation -> {
+            MediaBlob blob = blobs.get(invocation.<String>getArgument(0));
+            if (blob == null || blob.getRefCount() <= 0) {
+                return 0;
+            }
+            blob.setRefCount(blob.getRefCount() - 1);
+            return 1;
+        });
+        when(mediaBlobMapper.selectById(anyString())).thenAnswer(invocation -> blobs.get(invocation.<String>getArgument(0)));
+        when(mediaBlobMapper.deleteById(anyString())).thenAnswer(invocation ->
+                blobs.remove(invocation.<String>getArgument(0)) != null ? 1 : 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws Exception {
+        Media first = upload("a.png", "same bytes");
+        Media second = upload("b.png", "same bytes");
+
+        assertEquals(first.getMediaHash(), second.getMediaHash());
+        assertEquals(first.getMediaPath(), second.getMediaPath());
+        assertEquals(2, blobs.get(first.getMediaHash()).getRefCount());
+        assertEquals(List.of(Paths.get(first.getMediaPath())), storedFiles());
+        assertEquals("same bytes", Files.readString(Paths.get(first.getMediaPath())));
+    }
+
+    @Test
+    void differentContentIsStoredSeparately() throws Exception {
+        Media first = upload("a.png", "first");
+        Media second = upload("a.png", "second");
+
+        assertEquals(1, blobs.get(first.getMediaHash()).getRefCount());
+        assertEquals(1, blobs.get(second.getMediaHash()).getRefCount());
+        assertEquals(2, storedFiles().size());
+    }
+
+    @Test
+    void fileIsDeletedWithTheLastReference() throws Exception {
+        Media first = upload("a.png", "same bytes");
+        Media second = upload("b.png", "same bytes");
+        Path path = Paths.get(first.getMediaPath());
+
+        assertTrue(mediaService.removeMedia(first));
+
+        assertTrue(Files.exists(path));
+        assertEquals(1, blobs.get(first.getMediaHash()).getRefCount());
+        verify(mediaBytesCache, never()).invalidate(path);
+
+        assertTrue(mediaService.removeMedia(second));
+
+        assertFalse(Files.exists(path));
+        assertFalse(blobs.containsKey(first.getMediaHash()));
+        verify(mediaBytesCache).invalidate(path);
+    }
+
+    @Test
+    void removingAlreadyDeletedMediaKeepsTheReference() throws Exception {
+        Media media = upload("a.png", "bytes");
+        when(mediaMapper.deleteById(anyInt())).thenReturn(0);
+
+        assertFalse(mediaService.removeMedia(media));
+
+        assertEquals(1, blobs.get(media.getMediaHash()).getRefCount());
+        assertTrue(Files.exists(Paths.get(media.getMediaPath())));
+        verify(mediaBlobMapper, never()).release(anyString());
+    }
+
+    private Media upload(String filename, String content) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", filename, "image/png", content.getBytes(StandardCharsets.UTF_8));
+        return mediaService.upload(file, filename).get();
+    }
+
+    /**
+     * 上传目录下保存的文件，不包括临时文件。
+     */
+    private List<Path> storedFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+}